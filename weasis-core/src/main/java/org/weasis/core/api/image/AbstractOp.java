@@ -11,21 +11,88 @@
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import org.weasis.core.util.LangUtil;
 
 public abstract class AbstractOp implements ImageOpNode {
 
   protected HashMap<String, Object> params;
+  private long paramVersion;
 
   protected AbstractOp() {
-    params = new HashMap<>();
+    params = new ParamMap();
   }
 
   protected AbstractOp(AbstractOp op) {
-    params = new HashMap<>(op.params);
+    params = new ParamMap();
+    params.putAll(op.params);
     clearIOCache();
   }
 
+  /**
+   * Returns the version of the parameters. It changes each time a parameter other than the input
+   * and output images is modified, so {@link SimpleOpManager} can reuse the previous output when
+   * the version and the input image are unchanged.
+   *
+   * @return the version of the parameters
+   */
+  public long getParamVersion() {
+    return paramVersion;
+  }
+
+  private static boolean isIOParam(Object key) {
+    return Param.INPUT_IMG.equals(key) || Param.OUTPUT_IMG.equals(key);
+  }
+
+  private static boolean isModified(Object oldValue, Object newValue) {
+    if (oldValue != newValue) {
+      return !Objects.equals(oldValue, newValue);
+    }
+    // The same instance of a mutable object may have been modified
+    return !(newValue == null
+        || newValue instanceof Number
+        || newValue instanceof String
+        || newValue instanceof Boolean
+        || newValue instanceof Enum<?>);
+  }
+
+  /** Map of the parameters incrementing the version when a value is modified. */
+  private class ParamMap extends HashMap<String, Object> {
+
+    @Override
+    public Object put(String key, Object value) {
+      Object old = super.put(key, value);
+      if (!isIOParam(key) && isModified(old, value)) {
+        paramVersion++;
+      }
+      return old;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+      // HashMap.putAll() does not call put()
+      m.forEach(this::put);
+    }
+
+    @Override
+    public Object remove(Object key) {
+      boolean exists = containsKey(key);
+      Object old = super.remove(key);
+      if (exists && !isIOParam(key)) {
+        paramVersion++;
+      }
+      return old;
+    }
+
+    @Override
+    public void clear() {
+      if (!isEmpty()) {
+        paramVersion++;
+      }
+      super.clear();
+    }
+  }
+
   @Override
   public void clearParams() {
     params.clear();
@@ -48,4 +48,11 @@ public void process() throws Exception {
     }
     params.put(Param.OUTPUT_IMG, result);
   }
+
+  @Override
+  public boolean isRegionIndependent() {
+    // A kernel applied on a reduced resolution does not give the same result
+    KernelData kernel = (KernelData) params.get(P_KERNEL_DATA);
+    return kernel == null || kernel.equals(KernelData.NONE);
+  }
 }
@@ -49,4 +49,15 @@ private Param() {}
   void clearIOCache();
 
   void handleImageOpEvent(ImageOpEvent event);
+
+  /**
+   * Indicates whether the operation, with its current parameters, gives the same result when it is
+   * applied on a region or on a reduced resolution of the input image (e.g. a lookup table). The
+   * display can then apply it only on the visible part of a large image.
+   *
+   * @return true if the operation can be applied on the visible region only
+   */
+  default boolean isRegionIndependent() {
+    return false;
+  }
 }
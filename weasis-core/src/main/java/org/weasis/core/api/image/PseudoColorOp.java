@@ -72,4 +72,9 @@ public void process() throws Exception {
 
     params.put(Param.OUTPUT_IMG, result);
   }
+
+  @Override
+  public boolean isRegionIndependent() {
+    return true;
+  }
 }
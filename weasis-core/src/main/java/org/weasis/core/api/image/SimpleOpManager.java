@@ -11,20 +11,49 @@
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.Messages;
 import org.weasis.core.api.image.ImageOpNode.Param;
+import org.weasis.core.util.StringUtil;
 import org.weasis.opencv.data.PlanarImage;
 
+/**
+ * Ordered list of image operations. The processing is incremental: it restarts from the first
+ * operation whose parameters or input have changed and reuses the outputs of the previous
+ * operations. The intermediate outputs are kept within a memory budget (the earliest ones are
+ * released first), the output of the last operation is always kept.
+ *
+ * <p>Only the parameters set through the {@link AbstractOp} map are tracked. When a parameter
+ * value is modified outside the operation, {@link #clearNodeIOCache()} forces a full processing.
+ */
 public class SimpleOpManager implements OpManager {
   private static final Logger LOGGER = LoggerFactory.getLogger(SimpleOpManager.class);
 
   public static final String IMAGE_OP_NAME = Messages.getString("SimpleOpManager.img_op");
 
+  /** Maximum size in MB of the intermediate images kept between two processing (64 by default). */
+  public static final String P_CACHE_SIZE = "weasis.image.op.cache.size";
+
+  private static final long CACHE_SIZE =
+      StringUtil.getInt(System.getProperty(P_CACHE_SIZE), 64) * 1024L * 1024L;
+
+  private static long stampCounter;
+
+  /**
+   * State of an operation after its last processing.
+   *
+   * @param version the version of the parameters
+   * @param inputStamp the stamp of the output of the previous operation
+   * @param outputStamp the stamp of the output
+   */
+  private record NodeState(long version, long inputStamp, long outputStamp) {}
+
   public enum Position {
     BEFORE,
     AFTER
@@ -32,6 +61,8 @@ public enum Position {
 
   private final HashMap<String, ImageOpNode> nodes;
   private final List<ImageOpNode> operations;
+  private final Map<ImageOpNode, NodeState> states;
+  private PlanarImage lastSource;
   private String name;
 
   public SimpleOpManager() {
@@ -41,12 +72,14 @@ public SimpleOpManager() {
   public SimpleOpManager(String name) {
     this.operations = new ArrayList<>();
     this.nodes = new HashMap<>();
+    this.states = new IdentityHashMap<>();
     setName(name);
   }
 
   public SimpleOpManager(SimpleOpManager som) {
     this.operations = new ArrayList<>();
     this.nodes = new HashMap<>();
+    this.states = new IdentityHashMap<>();
     setName(som.name);
 
     som.nodes.forEach(
@@ -114,6 +147,7 @@ public void addImageOperationAction(ImageOpNode action, Position pos, ImageOpNod
   public void removeImageOperationAction(ImageOpNode action) {
     if (action != null) {
       boolean remove = operations.remove(action);
+      states.remove(action);
       if (nodes.remove(action.getName()) == null && remove) {
         for (Entry<String, ImageOpNode> entry : nodes.entrySet()) {
           if (entry.getValue() == action) {
@@ -130,6 +164,8 @@ public void removeAllImageOperationAction() {
     clearNodeParams();
     operations.clear();
     nodes.clear();
+    states.clear();
+    lastSource = null;
   }
 
   @Override
@@ -144,6 +180,7 @@ public void clearNodeIOCache() {
     for (ImageOpNode node : operations) {
       node.clearIOCache();
     }
+    lastSource = null;
   }
 
   @Override
@@ -209,11 +246,22 @@ public void resetLastNodeOutputImage() {
   public PlanarImage process() {
     PlanarImage source = getFirstNodeInputImage();
     if (source != null && source.width() > 0) {
-      for (int i = 0; i < operations.size(); i++) {
+      int size = operations.size();
+      int start = getFirstNodeToProcess(source);
+      // Restart from the last available output
+      while (start > 0 && operations.get(start - 1).getParam(Param.OUTPUT_IMG) == null) {
+        start--;
+      }
+      lastSource = source;
+      for (int i = start; i < size; i++) {
         ImageOpNode op = operations.get(i);
+        long inputStamp = 0;
         try {
           if (i > 0) {
-            op.setParam(Param.INPUT_IMG, operations.get(i - 1).getParam(Param.OUTPUT_IMG));
+            ImageOpNode previous = operations.get(i - 1);
+            op.setParam(Param.INPUT_IMG, previous.getParam(Param.OUTPUT_IMG));
+            NodeState s = states.get(previous);
+            inputStamp = s == null ? -1 : s.outputStamp();
           }
           if (op.isEnabled()) {
             op.process();
@@ -221,17 +269,103 @@ public PlanarImage process() {
             // Skip this operation
             op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
           }
+          setState(op, inputStamp);
         } catch (Exception e) {
           LOGGER.error("Image {} failed", op.getParam(Param.NAME), e);
           op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
+          states.remove(op);
         }
       }
+      releaseIntermediateImages(source);
     } else {
       clearNodeIOCache();
+      states.clear();
     }
     return getLastNodeOutputImage();
   }
 
+  @Override
+  public boolean needProcessing() {
+    PlanarImage source = getFirstNodeInputImage();
+    return source == null
+        || getFirstNodeToProcess(source) < operations.size()
+        || getLastNodeOutputImage() == null;
+  }
+
+  private int getFirstNodeToProcess(PlanarImage source) {
+    if (source != lastSource) {
+      return 0;
+    }
+    int size = operations.size();
+    long inputStamp = 0;
+    for (int i = 0; i < size; i++) {
+      ImageOpNode op = operations.get(i);
+      NodeState s = states.get(op);
+      if (!(op instanceof AbstractOp abstractOp)
+          || s == null
+          || s.version() != abstractOp.getParamVersion()
+          || s.inputStamp() != inputStamp) {
+        return i;
+      }
+      inputStamp = s.outputStamp();
+    }
+    return size;
+  }
+
+  private void setState(ImageOpNode op, long inputStamp) {
+    if (op instanceof AbstractOp abstractOp) {
+      states.put(op, new NodeState(abstractOp.getParamVersion(), inputStamp, nextStamp()));
+    } else {
+      states.remove(op);
+    }
+  }
+
+  private static synchronized long nextStamp() {
+    return ++stampCounter;
+  }
+
+  /**
+   * Releases the earliest intermediate images when their size exceeds the memory budget. The
+   * source image, the input and the output of the last operation are never released.
+   */
+  private void releaseIntermediateImages(PlanarImage source) {
+    int last = operations.size() - 1;
+    if (last < 1) {
+      return;
+    }
+    Object lastInput = operations.get(last).getParam(Param.INPUT_IMG);
+    Object output = getLastNodeOutputImage();
+    long total = 0;
+    for (int i = 0; i < last; i++) {
+      total += getIntermediateSize(i, source, lastInput, output);
+    }
+    for (int i = 0; i < last && total > CACHE_SIZE; i++) {
+      long bytes = getIntermediateSize(i, source, lastInput, output);
+      if (bytes > 0) {
+        Object img = operations.get(i).getParam(Param.OUTPUT_IMG);
+        // Release also the disabled operations passing the same image
+        for (int j = i; j < last && operations.get(j).getParam(Param.OUTPUT_IMG) == img; j++) {
+          operations.get(j).setParam(Param.OUTPUT_IMG, null);
+          operations.get(j + 1).setParam(Param.INPUT_IMG, null);
+        }
+        total -= bytes;
+      }
+    }
+  }
+
+  private long getIntermediateSize(
+      int index, PlanarImage source, Object lastInput, Object output) {
+    Object img = operations.get(index).getParam(Param.OUTPUT_IMG);
+    if (img instanceof PlanarImage image
+        && img != source
+        && img != lastInput
+        && img != output
+        && (index == 0 || operations.get(index - 1).getParam(Param.OUTPUT_IMG) != img)) {
+      return image.physicalBytes();
+    }
+    return 0;
+  }
+
   @Override
   public Object getParamValue(String opName, String param) {
     if (opName != null && param != null) {
@@ -78,6 +78,12 @@ public void process() throws Exception {
     params.put(Param.OUTPUT_IMG, result);
   }
 
+  @Override
+  public boolean isRegionIndependent() {
+    // The lookup table does not depend on the neighboring pixels
+    return true;
+  }
+
   public WlPresentation getWlPresentation() {
     boolean pixelPadding =
         LangUtil.getNULLtoTrue((Boolean) getParam(ActionW.IMAGE_PIX_PADDING.cmd()));
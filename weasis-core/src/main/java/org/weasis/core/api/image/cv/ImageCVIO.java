@@ -78,6 +78,8 @@ public class ImageCVIO implements MediaReader<ImageElement> {
   private final FileCache fileCache;
   private final Codec codec;
   private ImageElement image = null;
+  // Rows, columns and type of the uncompressed image in the cache
+  private volatile int[] rawLayout = null;
 
   public ImageCVIO(URI media, String mimeType, Codec codec) {
     this.uri = Objects.requireNonNull(media);
@@ -121,6 +123,8 @@ public PlanarImage getImageFragment(MediaElement media) throws Exception {
         cache.setTransformedFile(file);
         img = readImage(file, true);
       }
+      ImagePyramid.attach(
+          img, media.getMediaURI().toString(), cache.getOriginalFile().orElse(file));
       return img;
     }
     return null;
@@ -150,7 +154,7 @@ private static void applyExifTag(ImageElement img, TagW tagW, String val) {
   private PlanarImage readImage(File file, boolean createTiledLayout) throws Exception {
     PlanarImage img;
     if (file.getPath().endsWith(".wcv")) {
-      img = new FileRawImage(file).read();
+      img = readRawImage(file);
     } else if (codec instanceof NativeOpenCVCodec) {
       List<String> exifTags = new ArrayList<>();
       img = ImageProcessor.readImageWithCvException(file, exifTags);
@@ -170,6 +174,27 @@ private PlanarImage readImage(File file, boolean createTiledLayout) throws Excep
     return img;
   }
 
+  private PlanarImage readRawImage(File file) throws IOException {
+    int[] layout = rawLayout;
+    if (layout != null && MappedImageCV.isMappingEnabled()) {
+      long length = (long) layout[0] * layout[1] * CvType.ELEM_SIZE(layout[2]);
+      if (file.length() == FileRawImage.HEADER_LENGTH + length) {
+        try {
+          return MappedImageCV.read(
+              file.toPath(), FileRawImage.HEADER_LENGTH, layout[0], layout[1], layout[2]);
+        } catch (IOException e) {
+          LOGGER.debug("Cannot map the raw image {}", file, e);
+        }
+      }
+    }
+    PlanarImage img = new FileRawImage(file).read();
+    if (img != null) {
+      // Keep the layout to map directly the pixel data the next time
+      rawLayout = new int[] {img.height(), img.width(), img.type()};
+    }
+    return img;
+  }
+
   private PlanarImage readImageIOImage(File file) throws IOException {
     ImageReader reader = getDefaultReader(mimeType);
     if (reader == null) {
@@ -0,0 +1,536 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.image.cv;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.api.service.BundlePreferences;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
+import org.weasis.opencv.op.ImageConversion;
+import org.weasis.opencv.op.ImageProcessor;
+
+/**
+ * Multi-resolution pyramid of a large image stored in a file. Each level halves the size of the
+ * previous one and is divided into tiles of 512x512 pixels, so the tiles covering a region can be
+ * memory-mapped without reading the rest of the file. The full resolution (level 0) is not stored,
+ * it is the image itself.
+ *
+ * <p>The pyramid is built in background the first time a large image is read, then it is attached
+ * to the image instances read from the same source. The pyramids are kept in the data folder of the
+ * bundle to be reused across the sessions, the least recently used files are deleted when the
+ * cache exceeds its maximum size.
+ */
+public final class ImagePyramid {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ImagePyramid.class);
+
+  /** Enable the pyramid of the large images (true by default). */
+  public static final String P_PYRAMID = "weasis.image.pyramid";
+
+  /** Minimum number of pixels of an image to build a pyramid (16 MP by default). */
+  public static final String P_MIN_SIZE = "weasis.image.pyramid.min.size";
+
+  /** Maximum size of the cache of the pyramids in MB (2 GB by default). */
+  public static final String P_CACHE_MAX_SIZE = "weasis.image.pyramid.cache.max.size";
+
+  public static final int TILE_SIZE = ImageCVIO.TILE_SIZE;
+
+  private static final int MAGIC = 0x57435059; // WCPY
+  private static final int VERSION = 2;
+  private static final long MIN_SIZE =
+      StringUtil.getInt(System.getProperty(P_MIN_SIZE), 16 * 1024 * 1024);
+
+  private static final String EXTENSION = ".wcp"; // NON-NLS
+  private static final String TMP_EXTENSION = ".tmp"; // NON-NLS
+  // Age of the temporary files left by a crash
+  private static final long MAX_TMP_AGE = TimeUnit.DAYS.toMillis(1);
+
+  private static final ExecutorService BUILDER =
+      ThreadUtil.buildNewSingleThreadExecutor("Image Pyramid Builder"); // NON-NLS
+  private static final Set<String> PENDING = ConcurrentHashMap.newKeySet();
+  // The image instances are weakly referenced, the pyramid is released with the image
+  private static final Map<PlanarImage, ImagePyramid> IMAGES =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  // Lazy initialization, the folder is not created when there is no large image
+  private static final class CacheDirectoryHolder {
+    private static final File CACHE_DIR = buildCacheDirectory();
+  }
+
+  private record Level(int width, int height, long offset) {}
+
+  // Identify the version of the source file, the pyramid is not used when the file is replaced
+  private record Source(long length, long lastModified) {}
+
+  private final Path path;
+  private final int width;
+  private final int height;
+  private final int type;
+  private final Source source;
+  private final Level[] levels;
+
+  private ImagePyramid(Path path, int width, int height, int type, Source source, Level[] levels) {
+    this.path = path;
+    this.width = width;
+    this.height = height;
+    this.type = type;
+    this.source = source;
+    this.levels = levels;
+  }
+
+  private static File buildCacheDirectory() {
+    File dir =
+        new File(
+            BundlePreferences.getDataFolder(AppProperties.getBundleContext(ImagePyramid.class)),
+            "pyramid"); // NON-NLS
+    dir.mkdirs();
+    // The folder is shared by the running instances, only remove the old temporary files
+    long limit = System.currentTimeMillis() - MAX_TMP_AGE;
+    File[] files = dir.listFiles((d, name) -> name.endsWith(TMP_EXTENSION));
+    if (files != null) {
+      for (File f : files) {
+        if (f.lastModified() < limit) {
+          FileUtil.delete(f);
+        }
+      }
+    }
+    return dir;
+  }
+
+  public static boolean isEnabled() {
+    return MappedImageCV.isMappingEnabled()
+        && GuiUtils.getUICore().getSystemPreferences().getBooleanProperty(P_PYRAMID, true);
+  }
+
+  /**
+   * Attaches the pyramid of a large image. The pyramid is read from the cache or built in
+   * background when it does not exist.
+   *
+   * <p>The image can be released by the cache while the pyramid is built, so the builder reduces
+   * the levels from a private copy of the image. Only the copy is made in the calling thread.
+   *
+   * @param image the full resolution image
+   * @param sourceKey the unique identifier of the image source (e.g. URI and frame)
+   * @param sourceFile the file of the image source
+   */
+  public static void attach(PlanarImage image, String sourceKey, File sourceFile) {
+    if (image == null
+        || !StringUtil.hasText(sourceKey)
+        || sourceFile == null
+        || (long) image.width() * image.height() < MIN_SIZE
+        || IMAGES.containsKey(image)
+        || !isEnabled()) {
+      return;
+    }
+    Source source = new Source(sourceFile.length(), sourceFile.lastModified());
+    String key =
+        StringUtil.bytesToMD5(
+            (sourceKey + "|" + source.length() + "|" + source.lastModified())
+                .getBytes(StandardCharsets.UTF_8));
+    Path file = CacheDirectoryHolder.CACHE_DIR.toPath().resolve(key + EXTENSION);
+    if (Files.isReadable(file)) {
+      ImagePyramid pyramid = open(file);
+      if (pyramid != null && pyramid.matches(image, source)) {
+        // Used recently, delete it last
+        if (!file.toFile().setLastModified(System.currentTimeMillis())) {
+          LOGGER.debug("Cannot update the date of {}", file);
+        }
+        IMAGES.put(image, pyramid);
+        return;
+      }
+      FileUtil.delete(file);
+    }
+    if (PENDING.add(key)) {
+      int width = image.width();
+      int height = image.height();
+      int type = image.type();
+      PlanarImage copy;
+      try {
+        copy = ImageCV.toImageCV(image.toMat().clone());
+      } catch (Exception e) {
+        PENDING.remove(key);
+        LOGGER.error("Cannot build the pyramid of the image {}", sourceKey, e);
+        return;
+      }
+      // Do not prevent the image from being garbage collected while waiting for the builder
+      WeakReference<PlanarImage> ref = new WeakReference<>(image);
+      BUILDER.execute(
+          () -> {
+            try {
+              PlanarImage first;
+              try {
+                first = reduce(copy, width, height, 1);
+              } finally {
+                ImageConversion.releasePlanarImage(copy);
+              }
+              ImagePyramid pyramid = write(file, width, height, type, source, first);
+              PlanarImage img = ref.get();
+              if (img != null) {
+                IMAGES.put(img, pyramid);
+              }
+              prune(file);
+            } catch (Exception e) {
+              LOGGER.error("Cannot build the pyramid of the image {}", sourceKey, e);
+            } finally {
+              PENDING.remove(key);
+            }
+          });
+    }
+  }
+
+  /**
+   * @param image the full resolution image
+   * @return the pyramid attached to the image or null
+   */
+  public static ImagePyramid get(PlanarImage image) {
+    return image == null ? null : IMAGES.get(image);
+  }
+
+  private boolean matches(PlanarImage image, Source src) {
+    return image.width() == width
+        && image.height() == height
+        && image.type() == type
+        && source.equals(src);
+  }
+
+  /**
+   * @return the lowest resolution level
+   */
+  public int getMaxLevel() {
+    return levels.length;
+  }
+
+  /**
+   * @param level the level, 0 is the full resolution
+   * @return the size of the level
+   */
+  public Dimension getLevelSize(int level) {
+    if (level == 0) {
+      return new Dimension(width, height);
+    }
+    Level l = levels[level - 1];
+    return new Dimension(l.width(), l.height());
+  }
+
+  /**
+   * Returns the size of an image at a level, each level halves the size of the previous one.
+   *
+   * @param size the size of the full resolution image
+   * @param level the level
+   * @return the size at the level
+   */
+  public static int getLevelSize(int size, int level) {
+    int s = size;
+    for (int i = 0; i < level; i++) {
+      s = Math.max(1, s / 2);
+    }
+    return s;
+  }
+
+  /**
+   * Reads a region of a level by mapping only the tiles it covers.
+   *
+   * @param level the level, from 1 to {@link #getMaxLevel()}
+   * @param region the region in the coordinates of the level
+   * @return a new image of the region
+   * @throws IOException if the tiles cannot be read
+   */
+  public PlanarImage getRegion(int level, Rectangle region) throws IOException {
+    Level l = levels[level - 1];
+    Rectangle r = region.intersection(new Rectangle(0, 0, l.width(), l.height()));
+    if (r.isEmpty()) {
+      throw new IOException("The region is outside of the level " + level);
+    }
+    int tilesX = (l.width() + TILE_SIZE - 1) / TILE_SIZE;
+    long tileLength = getTileLength(type);
+    ImageCV dst = new ImageCV(r.height, r.width, type);
+    for (int ty = r.y / TILE_SIZE; ty * TILE_SIZE < r.y + r.height; ty++) {
+      for (int tx = r.x / TILE_SIZE; tx * TILE_SIZE < r.x + r.width; tx++) {
+        Rectangle tile = new Rectangle(tx * TILE_SIZE, ty * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+        Rectangle part = tile.intersection(r);
+        long position = l.offset() + ((long) ty * tilesX + tx) * tileLength;
+        MappedImageCV mapped = MappedImageCV.map(path, position, TILE_SIZE, TILE_SIZE, type);
+        Mat src =
+            mapped.submat(new Rect(part.x - tile.x, part.y - tile.y, part.width, part.height));
+        // Unmap the tile as soon as it is copied
+        mapped.release();
+        src.copyTo(dst.submat(new Rect(part.x - r.x, part.y - r.y, part.width, part.height)));
+        src.release();
+      }
+    }
+    return dst;
+  }
+
+  private static long getTileLength(int type) {
+    return (long) TILE_SIZE * TILE_SIZE * CvType.ELEM_SIZE(type);
+  }
+
+  private static int getHeaderLength(int nbLevels) {
+    return 7 * Integer.BYTES + 2 * Long.BYTES + nbLevels * (2 * Integer.BYTES + Long.BYTES);
+  }
+
+  private static ImagePyramid open(Path file) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer buf = ByteBuffer.allocate(getHeaderLength(0)).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, buf, 0);
+      if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+        return null;
+      }
+      int width = buf.getInt();
+      int height = buf.getInt();
+      int type = buf.getInt();
+      int tileSize = buf.getInt();
+      int nbLevels = buf.getInt();
+      Source source = new Source(buf.getLong(), buf.getLong());
+      if (tileSize != TILE_SIZE || nbLevels <= 0 || nbLevels > 32) {
+        return null;
+      }
+      buf = ByteBuffer.allocate(getHeaderLength(nbLevels)).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, buf, 0);
+      buf.position(getHeaderLength(0));
+      Level[] levels = new Level[nbLevels];
+      for (int i = 0; i < nbLevels; i++) {
+        levels[i] = new Level(buf.getInt(), buf.getInt(), buf.getLong());
+      }
+      Level last = levels[nbLevels - 1];
+      long end =
+          last.offset()
+              + (long) ((last.width() + TILE_SIZE - 1) / TILE_SIZE)
+                  * ((last.height() + TILE_SIZE - 1) / TILE_SIZE)
+                  * getTileLength(type);
+      if (channel.size() != end) {
+        return null;
+      }
+      return new ImagePyramid(file, width, height, type, source, levels);
+    } catch (IOException e) {
+      LOGGER.debug("Cannot read the pyramid {}", file, e);
+      return null;
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buf, long position)
+      throws IOException {
+    long pos = position;
+    while (buf.hasRemaining()) {
+      int n = channel.read(buf, pos);
+      if (n < 0) {
+        throw new IOException("Unexpected end of file");
+      }
+      pos += n;
+    }
+    buf.flip();
+  }
+
+  /**
+   * @return a new image of the previous level reduced by half
+   */
+  private static PlanarImage reduce(PlanarImage previous, int width, int height, int level) {
+    Dimension dim = new Dimension(getLevelSize(width, level), getLevelSize(height, level));
+    return ImageProcessor.scale(previous.toMat(), dim, Imgproc.INTER_AREA);
+  }
+
+  /**
+   * Writes the pyramid file and releases the first level.
+   *
+   * @param first the first reduced level, a private image of the builder
+   */
+  private static ImagePyramid write(
+      Path file, int width, int height, int type, Source source, PlanarImage first)
+      throws IOException {
+    long tileLength = getTileLength(type);
+    // The smallest level fits in a tile
+    int nbLevels = 0;
+    for (int w = width, h = height; w > TILE_SIZE || h > TILE_SIZE; nbLevels++) {
+      w = Math.max(1, w / 2);
+      h = Math.max(1, h / 2);
+    }
+    Level[] levels = new Level[nbLevels];
+    long offset = getHeaderLength(nbLevels);
+    for (int i = 0; i < nbLevels; i++) {
+      int w = getLevelSize(width, i + 1);
+      int h = getLevelSize(height, i + 1);
+      levels[i] = new Level(w, h, offset);
+      offset +=
+          (long) ((w + TILE_SIZE - 1) / TILE_SIZE) * ((h + TILE_SIZE - 1) / TILE_SIZE) * tileLength;
+    }
+
+    // Write a temporary file, so an incomplete pyramid is never read
+    Path tmp = file.resolveSibling(file.getFileName() + TMP_EXTENSION);
+    PlanarImage previous = first;
+    Mat tile = new Mat(TILE_SIZE, TILE_SIZE, type);
+    try (FileChannel channel =
+        FileChannel.open(
+            tmp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(getHeaderLength(nbLevels));
+      header.order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(MAGIC).putInt(VERSION);
+      header.putInt(width).putInt(height).putInt(type);
+      header.putInt(TILE_SIZE).putInt(nbLevels);
+      header.putLong(source.length()).putLong(source.lastModified());
+      for (Level l : levels) {
+        header.putInt(l.width()).putInt(l.height()).putLong(l.offset());
+      }
+      header.flip();
+      writeFully(channel, header);
+
+      for (int i = 0; i < nbLevels; i++) {
+        if (i > 0) {
+          // Each level is reduced from the previous one
+          PlanarImage img = reduce(previous, width, height, i + 1);
+          ImageConversion.releasePlanarImage(previous);
+          previous = img;
+        }
+        writeTiles(channel, previous.toMat(), tile);
+      }
+    } catch (IOException e) {
+      FileUtil.delete(tmp);
+      throw e;
+    } finally {
+      ImageConversion.releasePlanarImage(previous);
+      tile.release();
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return new ImagePyramid(file, width, height, type, source, levels);
+  }
+
+  /**
+   * Deletes the least recently used files when the cache exceeds its maximum size. The files of the
+   * pyramids attached to an image are kept.
+   *
+   * @param keep the file that has just been written
+   */
+  private static void prune(Path keep) {
+    long maxSize =
+        GuiUtils.getUICore().getSystemPreferences().getLongProperty(P_CACHE_MAX_SIZE, 2048)
+            * 1024
+            * 1024;
+    File[] files =
+        CacheDirectoryHolder.CACHE_DIR.listFiles((dir, name) -> name.endsWith(EXTENSION));
+    if (files == null) {
+      return;
+    }
+    long total = 0;
+    for (File f : files) {
+      total += f.length();
+    }
+    if (total <= maxSize) {
+      return;
+    }
+    Set<Path> used = new HashSet<>();
+    synchronized (IMAGES) {
+      IMAGES.values().forEach(p -> used.add(p.path));
+    }
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    for (File f : files) {
+      if (total <= maxSize) {
+        break;
+      }
+      if (!f.toPath().equals(keep) && !used.contains(f.toPath())) {
+        long length = f.length();
+        if (FileUtil.delete(f)) {
+          total -= length;
+        }
+      }
+    }
+  }
+
+  private static void writeTiles(FileChannel channel, Mat img, Mat tile) throws IOException {
+    for (int y = 0; y < img.rows(); y += TILE_SIZE) {
+      for (int x = 0; x < img.cols(); x += TILE_SIZE) {
+        int w = Math.min(TILE_SIZE, img.cols() - x);
+        int h = Math.min(TILE_SIZE, img.rows() - y);
+        if (w < TILE_SIZE || h < TILE_SIZE) {
+          // Pad the tiles of the border
+          tile.setTo(Scalar.all(0));
+        }
+        img.submat(new Rect(x, y, w, h)).copyTo(tile.submat(new Rect(0, 0, w, h)));
+        writeFully(channel, toBytes(tile));
+      }
+    }
+  }
+
+  private static ByteBuffer toBytes(Mat mat) throws IOException {
+    int n = (int) (mat.total() * mat.channels());
+    ByteBuffer buf =
+        ByteBuffer.allocate(n * (int) mat.elemSize1()).order(ByteOrder.LITTLE_ENDIAN);
+    switch (CvType.depth(mat.type())) {
+      case CvType.CV_8U, CvType.CV_8S -> {
+        byte[] data = new byte[n];
+        mat.get(0, 0, data);
+        buf.put(data);
+      }
+      case CvType.CV_16U, CvType.CV_16S -> {
+        short[] data = new short[n];
+        mat.get(0, 0, data);
+        buf.asShortBuffer().put(data);
+      }
+      case CvType.CV_32S -> {
+        int[] data = new int[n];
+        mat.get(0, 0, data);
+        buf.asIntBuffer().put(data);
+      }
+      case CvType.CV_32F -> {
+        float[] data = new float[n];
+        mat.get(0, 0, data);
+        buf.asFloatBuffer().put(data);
+      }
+      case CvType.CV_64F -> {
+        double[] data = new double[n];
+        mat.get(0, 0, data);
+        buf.asDoubleBuffer().put(data);
+      }
+      default -> throw new IOException("Unsupported image type: " + mat.type());
+    }
+    buf.clear();
+    return buf;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+    while (buf.hasRemaining()) {
+      channel.write(buf);
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.image.cv;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Range;
+import org.opencv.core.Rect;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.opencv.data.ImageCV;
+
+/**
+ * Image whose pixel data is a memory-mapped region of a file. The matrix uses directly the mapped
+ * memory without copy, so the OS page cache is the only cache of the pixel data.
+ *
+ * <p>The mapping is read-only and is unmapped when the image is released. As the views of a matrix
+ * do not keep the mapping alive, the sub-matrices of this image are copies. Other headers sharing
+ * the data (row, col, reshape, etc.) would read unmapped memory after the release, so a mapped
+ * image must remain local to the code which maps and releases it. The images shared with other
+ * threads, like the ones of the cache, are read with {@link #read(Path, long, int, int, int)}.
+ */
+public class MappedImageCV extends ImageCV {
+
+  /** Enable the memory mapping of the uncompressed images (true by default). */
+  public static final String P_MAP_UNCOMPRESSED = "weasis.image.map.uncompressed";
+
+  private final Arena arena;
+  private final long mappedBytes;
+  private boolean unmapped;
+
+  private MappedImageCV(Arena arena, MemorySegment segment, int rows, int cols, int type) {
+    super();
+    this.arena = arena;
+    this.mappedBytes = segment.byteSize();
+    Mat mat = new Mat(rows, cols, type, segment.asByteBuffer().order(ByteOrder.nativeOrder()));
+    // Share the data without copy
+    mat.assignTo(this);
+    mat.release();
+  }
+
+  public static boolean isMappingEnabled() {
+    return ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN
+        && GuiUtils.getUICore().getSystemPreferences().getBooleanProperty(P_MAP_UNCOMPRESSED, true);
+  }
+
+  /**
+   * Maps the uncompressed pixel data of a file.
+   *
+   * @param path the file
+   * @param position the position of the first pixel in the file
+   * @param rows the number of rows
+   * @param cols the number of columns
+   * @param type the OpenCV type of the pixel data in little endian
+   * @return the image backed by the file
+   * @throws IOException if the file cannot be mapped or is too short
+   */
+  public static MappedImageCV map(Path path, long position, int rows, int cols, int type)
+      throws IOException {
+    long length = (long) rows * cols * CvType.ELEM_SIZE(type);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (length <= 0 || position + length > channel.size()) {
+        throw new IOException("The file " + path + " does not contain the expected pixel data");
+      }
+      // The mapping remains valid after closing the channel, until the arena is closed
+      Arena arena = Arena.ofShared();
+      try {
+        MemorySegment segment = channel.map(MapMode.READ_ONLY, position, length, arena);
+        return new MappedImageCV(arena, segment, rows, cols, type);
+      } catch (IOException | RuntimeException e) {
+        arena.close();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Reads the uncompressed pixel data of a file through a temporary mapping. The returned image
+   * owns a copy of the data, so the reference counting of OpenCV keeps it valid in all its views.
+   *
+   * @param path the file
+   * @param position the position of the first pixel in the file
+   * @param rows the number of rows
+   * @param cols the number of columns
+   * @param type the OpenCV type of the pixel data in little endian
+   * @return the image copied from the file
+   * @throws IOException if the file cannot be mapped or is too short
+   */
+  public static ImageCV read(Path path, long position, int rows, int cols, int type)
+      throws IOException {
+    MappedImageCV mapped = map(path, position, rows, cols, type);
+    try {
+      ImageCV img = new ImageCV();
+      mapped.copyTo(img);
+      return img;
+    } finally {
+      mapped.release();
+    }
+  }
+
+  public long mappedBytes() {
+    return mappedBytes;
+  }
+
+  @Override
+  public synchronized void release() {
+    super.release();
+    if (!unmapped) {
+      unmapped = true;
+      arena.close();
+    }
+  }
+
+  @Override
+  public Mat submat(int rowStart, int rowEnd, int colStart, int colEnd) {
+    return copyOf(super.submat(rowStart, rowEnd, colStart, colEnd));
+  }
+
+  @Override
+  public Mat submat(Range rowRange, Range colRange) {
+    return copyOf(super.submat(rowRange, colRange));
+  }
+
+  @Override
+  public Mat submat(Range[] ranges) {
+    return copyOf(super.submat(ranges));
+  }
+
+  @Override
+  public Mat submat(Rect roi) {
+    return copyOf(super.submat(roi));
+  }
+
+  @Override
+  public Mat rowRange(int startRow, int endRow) {
+    return copyOf(super.rowRange(startRow, endRow));
+  }
+
+  @Override
+  public Mat colRange(int startCol, int endCol) {
+    return copyOf(super.colRange(startCol, endCol));
+  }
+
+  private static Mat copyOf(Mat view) {
+    Mat copy = view.clone();
+    view.release();
+    return copy;
+  }
+}
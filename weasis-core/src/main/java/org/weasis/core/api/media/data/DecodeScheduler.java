@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.api.util.ThreadUtil;
+
+/**
+ * Schedules the decoding of images on a pool of worker threads.
+ *
+ * <p>The requests are executed by priority and then in the order of submission. A request for a key
+ * which is already pending or running shares the same task (the task is promoted when the new
+ * request has a higher priority). Pending requests can be cancelled, for instance when the user
+ * scrolls away from the frames that were requested.
+ *
+ * <p>A shared task counts its requests: cancelling one request withdraws it, and the task is
+ * cancelled only when no request remains. Each call to {@link #cancel(Object, Priority)} must match
+ * a previous call to {@link #submit(Object, Priority, Callable)}.
+ */
+public class DecodeScheduler {
+
+  /** Number of threads used for decoding images. By default, the number of processors minus one. */
+  public static final String P_DECODE_THREADS = "weasis.image.decode.threads";
+
+  /** Priority class of a decoding request, from the highest to the lowest priority. */
+  public enum Priority {
+    /** Image displayed in a view */
+    DISPLAY,
+    /** Images next to the displayed one, for scrolling */
+    NEIGHBOR,
+    /** Images of a series loaded in background */
+    PRELOAD,
+    /** Image for building a thumbnail */
+    THUMBNAIL
+  }
+
+  private final ThreadPoolExecutor executor;
+  private final Map<Object, DecodeTask<?>> requests;
+  private final AtomicLong sequence;
+
+  public DecodeScheduler(int nbThreads, String name) {
+    int size = Math.max(1, nbThreads);
+    this.requests = new ConcurrentHashMap<>();
+    this.sequence = new AtomicLong();
+    this.executor =
+        new ThreadPoolExecutor(
+            size,
+            size,
+            30L,
+            TimeUnit.SECONDS,
+            new PriorityBlockingQueue<>(64),
+            ThreadUtil.getThreadFactory(name));
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  public static DecodeScheduler getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  public static int getDefaultThreadNumber() {
+    return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+  }
+
+  public int getThreadNumber() {
+    return executor.getMaximumPoolSize();
+  }
+
+  public int getPendingRequestNumber() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Submits a decoding request. When a request for the same key is not completed, its task is
+   * returned instead of creating a new one.
+   *
+   * @param key the key identifying the decoded data (e.g. the media element)
+   * @param priority the priority class of the request
+   * @param callable the decoding operation
+   * @return a Future representing the pending result of the decoding operation
+   */
+  public <T> Future<T> submit(Object key, Priority priority, Callable<T> callable) {
+    return submit(key, priority, callable, null);
+  }
+
+  /**
+   * Submits a decoding request with a listener called when the task is completed or cancelled,
+   * instead of polling the returned Future. The listener runs in the thread completing the task, or
+   * immediately when the shared task is already completed.
+   *
+   * @param key the key identifying the decoded data (e.g. the media element)
+   * @param priority the priority class of the request
+   * @param callable the decoding operation
+   * @param listener the action to run when the task is done, can be null
+   * @return a Future representing the pending result of the decoding operation
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Future<T> submit(
+      Object key, Priority priority, Callable<T> callable, Runnable listener) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(priority);
+    Objects.requireNonNull(callable);
+    while (true) {
+      DecodeTask<T> task = new DecodeTask<>(key, priority, callable);
+      task.addListener(listener);
+      DecodeTask<?> previous = requests.putIfAbsent(key, task);
+      if (previous == null) {
+        executor.execute(task);
+        return task;
+      }
+      if (join(previous, priority)) {
+        previous.addListener(listener);
+        return (Future<T>) previous;
+      }
+      requests.remove(key, previous);
+    }
+  }
+
+  /**
+   * Cancels a request which is not yet started and which has a priority lower or equal to the given
+   * one. When the task is shared with other requests, only this request is withdrawn and the task
+   * remains pending.
+   *
+   * @param key the key identifying the decoded data
+   * @param priority the highest priority that can be cancelled
+   * @return true if the request has been cancelled
+   */
+  public boolean cancel(Object key, Priority priority) {
+    DecodeTask<?> task = key == null ? null : requests.get(key);
+    if (task != null) {
+      synchronized (task) {
+        if (task.priority.compareTo(priority) >= 0 && executor.getQueue().contains(task)) {
+          if (task.requesters > 1) {
+            task.requesters--;
+            return true;
+          }
+          if (executor.getQueue().remove(task)) {
+            task.requesters = 0;
+            return task.cancel(false);
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  public boolean isPending(Object key) {
+    DecodeTask<?> task = key == null ? null : requests.get(key);
+    return task != null && !task.isDone();
+  }
+
+  /**
+   * Adds a request to a task and promotes the task when the request has a higher priority.
+   *
+   * @return false if the task has been cancelled
+   */
+  private boolean join(DecodeTask<?> task, Priority priority) {
+    synchronized (task) {
+      if (task.isCancelled()) {
+        return false;
+      }
+      task.requesters++;
+      if (priority.compareTo(task.priority) < 0) {
+        // The priority of an element cannot be changed while it is in the queue
+        if (executor.getQueue().remove(task)) {
+          task.priority = priority;
+          executor.execute(task);
+        } else {
+          task.priority = priority;
+        }
+      }
+      return true;
+    }
+  }
+
+  private final class DecodeTask<T> extends FutureTask<T> implements Comparable<DecodeTask<?>> {
+    private final Object key;
+    private final long order;
+    private volatile Priority priority;
+    // Number of requests sharing the task, guarded by the task lock
+    private int requesters = 1;
+    // Listeners of the completion, guarded by the task lock
+    private List<Runnable> listeners;
+
+    DecodeTask(Object key, Priority priority, Callable<T> callable) {
+      super(callable);
+      this.key = key;
+      this.priority = priority;
+      this.order = sequence.getAndIncrement();
+    }
+
+    void addListener(Runnable listener) {
+      if (listener == null) {
+        return;
+      }
+      synchronized (this) {
+        if (!isDone()) {
+          if (listeners == null) {
+            listeners = new ArrayList<>(1);
+          }
+          listeners.add(listener);
+          return;
+        }
+      }
+      listener.run();
+    }
+
+    @Override
+    protected void done() {
+      requests.remove(key, this);
+      List<Runnable> list;
+      synchronized (this) {
+        list = listeners;
+        listeners = null;
+      }
+      if (list != null) {
+        list.forEach(Runnable::run);
+      }
+    }
+
+    @Override
+    public int compareTo(DecodeTask<?> o) {
+      int rep = priority.compareTo(o.priority);
+      if (rep != 0) {
+        return rep;
+      }
+      return Long.compare(order, o.order);
+    }
+  }
+
+  private static final class Holder {
+    private static final DecodeScheduler INSTANCE =
+        new DecodeScheduler(
+            GuiUtils.getUICore()
+                .getSystemPreferences()
+                .getIntProperty(P_DECODE_THREADS, getDefaultThreadNumber()),
+            "Image Decoder"); // NON-NLS
+  }
+}
@@ -16,8 +16,8 @@
 import java.net.URI;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -33,7 +33,7 @@
 import org.weasis.core.api.image.cv.CvUtil;
 import org.weasis.core.api.image.measure.MeasurementsAdapter;
 import org.weasis.core.api.image.util.Unit;
-import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
 import org.weasis.core.util.MathUtil;
 import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.LookupTableCV;
@@ -48,9 +48,6 @@
 public class ImageElement extends MediaElement {
   private static final Logger LOGGER = LoggerFactory.getLogger(ImageElement.class);
 
-  public static final ExecutorService IMAGE_LOADER =
-      ThreadUtil.buildNewSingleThreadExecutor("Image Loader"); // NON-NLS
-
   private static final NativeCache<ImageElement, PlanarImage> mCache =
       new NativeCache<>(Runtime.getRuntime().maxMemory() / 2) {
 
@@ -89,6 +86,10 @@ public static int getNumberOfImagesInCache() {
     return mCache.size();
   }
 
+  static NativeCache<ImageElement, PlanarImage> getCache() {
+    return mCache;
+  }
+
   protected void findMinMaxValues(PlanarImage img, boolean exclude8bitImage)
       throws OutOfMemoryError {
     // This function can be called several times from the inner class Load.
@@ -246,7 +247,7 @@ public MeasurementsAdapter getMeasurementAdapter(Unit displayUnit, Point offset)
   }
 
   public boolean isImageInCache() {
-    return mCache.get(this) != null;
+    return mCache.containsKey(this);
   }
 
   public void removeImageFromCache() {
@@ -381,15 +382,27 @@ public String toString() {
     return uri.toString();
   }
 
-  public synchronized PlanarImage getImage(OpManager manager, boolean findMinMax) {
+  public PlanarImage getImage(OpManager manager, boolean findMinMax) {
+    return getImage(manager, findMinMax, Priority.DISPLAY);
+  }
+
+  /**
+   * Returns the full size, original image. Returns null if the image is not loaded.
+   *
+   * @param manager the operations to apply on the image, can be null
+   * @param findMinMax true to compute the min and max values of the image
+   * @param priority the priority class for decoding the image when it is not in the cache
+   */
+  public synchronized PlanarImage getImage(
+      OpManager manager, boolean findMinMax, Priority priority) {
     try {
-      return getCacheImage(startImageLoading(), manager, findMinMax);
+      return getCacheImage(startImageLoading(priority), manager, findMinMax);
     } catch (OutOfMemoryError e1) {
       mCache.expungeStaleEntries();
       CvUtil.runGarbageCollectorAndWait(100);
 
       try {
-        return getCacheImage(startImageLoading(), manager, findMinMax);
+        return getCacheImage(startImageLoading(priority), manager, findMinMax);
       } catch (OutOfMemoryError e) {
         LOGGER.warn("Reading image data: {}", this, e1);
       }
@@ -428,20 +441,21 @@ public PlanarImage getImage() {
     return getImage(null);
   }
 
-  private PlanarImage startImageLoading() throws OutOfMemoryError {
+  private PlanarImage startImageLoading(Priority priority) throws OutOfMemoryError {
     PlanarImage cacheImage;
     if ((cacheImage = mCache.get(this)) == null && readable && setAsLoading()) {
       LOGGER.debug("Asking for reading image: {}", this);
-      Load ref = new Load();
-      Future<PlanarImage> future = IMAGE_LOADER.submit(ref);
+      Future<PlanarImage> future = requestImageLoading(priority);
       PlanarImage img = null;
       try {
         img = future.get(45, TimeUnit.SECONDS);
       } catch (InterruptedException | TimeoutException e) {
         // Re-assert the thread's interrupted status
         Thread.currentThread().interrupt();
-        // We don't need the result, so cancel the task too
-        future.cancel(true);
+        // We don't need the result: withdraw only this request, the task may be shared
+        cancelImageLoading(priority);
+      } catch (CancellationException e) {
+        LOGGER.debug("Reading image has been cancelled: {}", this);
       } catch (ExecutionException e) {
         if (e.getCause() instanceof OutOfMemoryError memoryError) {
           setAsLoaded();
@@ -454,9 +468,7 @@ private PlanarImage startImageLoading() throws OutOfMemoryError {
       if (img != null) {
         readable = img.width() > 0;
         if (readable) {
-          mCache.put(this, img);
           cacheImage = img;
-          this.setTag(TagW.ImageCache, true);
         }
       }
       setAsLoaded();
@@ -464,6 +476,40 @@ private PlanarImage startImageLoading() throws OutOfMemoryError {
     return cacheImage;
   }
 
+  /**
+   * Requests the decoding of the image without waiting for the result. The decoded image is put in
+   * the cache. The pending requests of lower priority can be cancelled with {@link
+   * #cancelImageLoading(Priority)}.
+   *
+   * @param priority the priority class of the request
+   * @return a Future representing the pending decoded image
+   */
+  public Future<PlanarImage> requestImageLoading(Priority priority) {
+    return requestImageLoading(priority, null);
+  }
+
+  /**
+   * Requests the decoding of the image without waiting for the result.
+   *
+   * @param priority the priority class of the request
+   * @param listener called when the decoding is completed or cancelled, can be null
+   * @return a Future representing the pending decoded image
+   */
+  public Future<PlanarImage> requestImageLoading(Priority priority, Runnable listener) {
+    return DecodeScheduler.getInstance().submit(this, priority, new Load(), listener);
+  }
+
+  /**
+   * Cancels the decoding request of this image when it is not started and its priority is lower or
+   * equal to the given priority.
+   *
+   * @param priority the highest priority that can be cancelled
+   * @return true if the request has been cancelled
+   */
+  public boolean cancelImageLoading(Priority priority) {
+    return DecodeScheduler.getInstance().cancel(this, priority);
+  }
+
   public boolean isReadable() {
     return readable;
   }
@@ -472,7 +518,15 @@ class Load implements Callable<PlanarImage> {
 
     @Override
     public PlanarImage call() throws Exception {
-      return loadImage();
+      PlanarImage img = mCache.get(ImageElement.this);
+      if (img == null) {
+        img = loadImage();
+        if (img != null && img.width() > 0) {
+          mCache.put(ImageElement.this, img);
+          setTag(TagW.ImageCache, true);
+        }
+      }
+      return img;
     }
   }
 }
@@ -12,56 +12,171 @@
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.opencv.data.PlanarImage;
 
+/**
+ * Cache of images stored in native memory. The capacity is the number of bytes of the images (see
+ * {@link PlanarImage#physicalBytes()}).
+ *
+ * <p>The entries are distributed in segments having their own lock and their own access order, so
+ * concurrent readers do not share a global lock. Each access stamps the entry from a global clock:
+ * the eldest entry of a segment has the oldest stamp of the segment, and the eviction removes the
+ * eldest entry having the oldest stamp among all the segments (LRU). The eviction runs in a
+ * background thread, except when the cache exceeds its capacity by more than 25%.
+ */
 public abstract class NativeCache<K, V extends PlanarImage> extends AbstractMap<K, V> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(NativeCache.class);
+
+  private static final int SEGMENTS = 16;
+
+  private static final ExecutorService CLEANER =
+      ThreadUtil.buildNewSingleThreadExecutor("Native Cache Cleaner"); // NON-NLS
 
-  protected final Map<K, V> hash;
+  private final Segment<K, V>[] segments;
   private final long maxNativeMemory;
   private final AtomicLong useNativeMemory;
+  private final AtomicLong accessClock;
+  private final AtomicBoolean evictionScheduled;
 
+  private final LongAdder hitCount;
+  private final LongAdder missCount;
+  private final LongAdder evictionCount;
+
+  @SuppressWarnings("unchecked")
   protected NativeCache(long maxNativeMemory) {
     this.maxNativeMemory = maxNativeMemory;
     this.useNativeMemory = new AtomicLong(0);
-    this.hash = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true));
+    this.accessClock = new AtomicLong(0);
+    this.evictionScheduled = new AtomicBoolean(false);
+    this.hitCount = new LongAdder();
+    this.missCount = new LongAdder();
+    this.evictionCount = new LongAdder();
+    this.segments = new Segment[SEGMENTS];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment<>();
+    }
+  }
+
+  private Segment<K, V> segmentFor(Object key) {
+    int h = key == null ? 0 : key.hashCode();
+    h ^= h >>> 16;
+    return segments[h & (SEGMENTS - 1)];
   }
 
   @Override
   public V get(Object key) {
-    return hash.get(key);
+    Segment<K, V> segment = segmentFor(key);
+    V val = null;
+    synchronized (segment) {
+      // Access-ordered map: get() changes the order of the entries
+      Node<V> node = segment.map.get(key);
+      if (node != null) {
+        node.stamp = accessClock.incrementAndGet();
+        val = node.value;
+      }
+    }
+    if (val == null) {
+      missCount.increment();
+    } else {
+      hitCount.increment();
+    }
+    return val;
   }
 
   public boolean isMemoryAvailable() {
     return useNativeMemory.get() < maxNativeMemory;
   }
 
+  public long getMaxNativeMemory() {
+    return maxNativeMemory;
+  }
+
+  public long getUsedNativeMemory() {
+    return useNativeMemory.get();
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  /**
+   * Removes the least recently used entries when the cache exceeds its capacity. This method runs
+   * in the calling thread, {@link #put(Object, PlanarImage)} triggers the same operation in the
+   * background.
+   */
   public void expungeStaleEntries() {
     if (!isMemoryAvailable()) {
-      synchronized (hash) {
-        List<K> remKeys = new ArrayList<>();
-        // 5% of max memory + diff
-        long maxfreeSize = maxNativeMemory / 20 + (useNativeMemory.get() - maxNativeMemory);
-        long freeSize = 0;
-
-        for (Map.Entry<K, V> e : hash.entrySet()) {
-          freeSize += physicalBytes(e.getValue());
-          if (freeSize > maxfreeSize) {
-            break;
+      // 5% of max memory + diff
+      long maxfreeSize = maxNativeMemory / 20 + (useNativeMemory.get() - maxNativeMemory);
+      long freeSize = 0;
+      List<Map.Entry<K, V>> removed = new ArrayList<>();
+      while (freeSize <= maxfreeSize) {
+        // The least recently used entry is the eldest entry having the oldest stamp
+        Segment<K, V> oldest = null;
+        long oldestStamp = Long.MAX_VALUE;
+        for (Segment<K, V> segment : segments) {
+          long stamp = segment.eldestStamp();
+          if (stamp < oldestStamp) {
+            oldestStamp = stamp;
+            oldest = segment;
           }
-          remKeys.add(e.getKey());
         }
-
-        for (K key : remKeys) {
-          V val = hash.remove(key);
-          useNativeMemory.addAndGet(-physicalBytes(val));
-          afterEntryRemove(key, val);
+        if (oldest == null) {
+          break;
+        }
+        // Null when the entry has been accessed in the meantime, then look for the next one
+        Map.Entry<K, V> eldest = oldest.removeEldest(oldestStamp);
+        if (eldest != null) {
+          long size = physicalBytes(eldest.getValue());
+          useNativeMemory.addAndGet(-size);
+          freeSize += size;
+          removed.add(eldest);
         }
       }
+
+      evictionCount.add(removed.size());
+      for (Map.Entry<K, V> e : removed) {
+        afterEntryRemove(e.getKey(), e.getValue());
+      }
+    }
+  }
+
+  private void scheduleEviction() {
+    if (useNativeMemory.get() > maxNativeMemory + maxNativeMemory / 4) {
+      // Too far above the capacity, free the memory before adding new images
+      expungeStaleEntries();
+    } else if (!isMemoryAvailable() && evictionScheduled.compareAndSet(false, true)) {
+      CLEANER.execute(
+          () -> {
+            evictionScheduled.set(false);
+            try {
+              expungeStaleEntries();
+            } catch (Exception e) {
+              LOGGER.error("Cannot remove the entries of the cache", e);
+            }
+          });
     }
   }
 
@@ -76,17 +191,25 @@ private long physicalBytes(V val) {
 
   @Override
   public V put(K key, V value) {
-    expungeStaleEntries();
-    V result = hash.put(key, value);
+    Segment<K, V> segment = segmentFor(key);
+    V result;
+    synchronized (segment) {
+      result = Node.value(segment.map.put(key, new Node<>(value, accessClock.incrementAndGet())));
+    }
     useNativeMemory.addAndGet(physicalBytes(value));
     useNativeMemory.addAndGet(-physicalBytes(result));
+    scheduleEviction();
     return result;
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public V remove(Object key) {
-    V val = hash.remove(key);
+    Segment<K, V> segment = segmentFor(key);
+    V val;
+    synchronized (segment) {
+      val = Node.value(segment.map.remove(key));
+    }
     useNativeMemory.addAndGet(-physicalBytes(val));
     afterEntryRemove((K) key, val);
     return val;
@@ -94,42 +217,113 @@ public V remove(Object key) {
 
   @Override
   public void clear() {
-    hash.clear();
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        segment.map.clear();
+      }
+    }
     useNativeMemory.set(0);
   }
 
   @Override
   public int size() {
-    return hash.size();
+    int size = 0;
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        size += segment.map.size();
+      }
+    }
+    return size;
   }
 
+  /**
+   * @return a snapshot of the entries of the cache
+   */
   @Override
   public Set<Entry<K, V>> entrySet() {
-    return hash.entrySet();
+    Map<K, V> copy = new HashMap<>();
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        segment.map.forEach((k, node) -> copy.put(k, node.value));
+      }
+    }
+    return Collections.unmodifiableMap(copy).entrySet();
   }
 
   @Override
   public boolean containsKey(Object key) {
-    return hash.containsKey(key);
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      return segment.map.containsKey(key);
+    }
   }
 
   @Override
   public boolean containsValue(Object value) {
-    return hash.containsValue(value);
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        for (Node<V> node : segment.map.values()) {
+          if (Objects.equals(node.value, value)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
   }
 
   @Override
   public int hashCode() {
-    return hash.hashCode();
+    return entrySet().hashCode();
   }
 
   @Override
   public boolean equals(Object obj) {
     if (this == obj) return true;
     if (!super.equals(obj)) return false;
-    if (getClass() != obj.getClass()) return false;
-    @SuppressWarnings("rawtypes")
-    NativeCache other = (NativeCache) obj;
-    return hash.equals(other.hash);
+    return getClass() == obj.getClass();
+  }
+
+  private static final class Node<V> {
+    private final V value;
+    private long stamp;
+
+    Node(V value, long stamp) {
+      this.value = value;
+      this.stamp = stamp;
+    }
+
+    static <V> V value(Node<V> node) {
+      return node == null ? null : node.value;
+    }
+  }
+
+  private static class Segment<K, V> {
+    private final LinkedHashMap<K, Node<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @return the stamp of the least recently used entry of the segment or Long.MAX_VALUE if the
+     *     segment is empty
+     */
+    synchronized long eldestStamp() {
+      Iterator<Node<V>> it = map.values().iterator();
+      return it.hasNext() ? it.next().stamp : Long.MAX_VALUE;
+    }
+
+    /**
+     * @param stamp the expected stamp of the least recently used entry
+     * @return the removed entry or null if the eldest entry does not have the expected stamp
+     */
+    synchronized Map.Entry<K, V> removeEldest(long stamp) {
+      Iterator<Map.Entry<K, Node<V>>> it = map.entrySet().iterator();
+      if (it.hasNext()) {
+        Map.Entry<K, Node<V>> e = it.next();
+        if (e.getValue().stamp == stamp) {
+          it.remove();
+          return new SimpleImmutableEntry<>(e.getKey(), e.getValue().value);
+        }
+      }
+      return null;
+    }
   }
 }
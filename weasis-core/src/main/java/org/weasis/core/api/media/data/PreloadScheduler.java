@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.api.image.cv.CvUtil;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Preloads the images of several series in the image cache with the {@link Priority#PRELOAD}
+ * priority of the {@link DecodeScheduler}.
+ *
+ * <p>The images are requested outward from the current image of each series, twice more in the
+ * scroll direction than behind. The series displayed last comes first and the images are preloaded
+ * as long as their size fits in a part of the capacity of the cache: preloading beyond would evict
+ * the images closer to the current ones.
+ *
+ * <p>While the user scrolls, only the images ahead of the current one are requested and the pending
+ * requests left behind are cancelled, so the decoding threads remain available for the displayed
+ * images.
+ */
+public final class PreloadScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PreloadScheduler.class);
+
+  /** Percentage of the capacity of the image cache used by the preloading (75 by default). */
+  public static final String P_CACHE_RATIO = "weasis.image.preload.cache.ratio";
+
+  private static final int MAX_SERIES = 4;
+  private static final long INTERACTION_DELAY = TimeUnit.MILLISECONDS.toNanos(300);
+
+  private final ExecutorService worker;
+  private final LinkedList<Job<?>> jobs;
+  private final Map<ImageElement, Request> requests;
+  private long lastInteraction;
+  private boolean running;
+  private boolean dirty;
+  private boolean paused;
+
+  private record Request(Job<?> job, ImageElement image, Future<PlanarImage> future) {}
+
+  private static final class Job<E extends ImageElement> {
+    private final MediaSeries<E> series;
+    private final List<E> images;
+    private final Map<ImageElement, Integer> indexes;
+    private final ToLongFunction<? super E> sizeEstimator;
+    private final Consumer<? super E> listener;
+    private int index;
+    private int direction;
+    private long decodedBytes;
+    private int decodedImages;
+
+    private Job(
+        MediaSeries<E> series,
+        List<E> images,
+        int index,
+        ToLongFunction<? super E> sizeEstimator,
+        Consumer<? super E> listener) {
+      this.series = series;
+      this.images = images;
+      this.indexes = new IdentityHashMap<>(images.size());
+      for (int i = 0; i < images.size(); i++) {
+        indexes.put(images.get(i), i);
+      }
+      this.index = Math.clamp(index, 0, Math.max(0, images.size() - 1));
+      this.sizeEstimator = sizeEstimator;
+      this.listener = listener;
+    }
+
+    private long estimateSize(E image) {
+      long size = sizeEstimator == null ? 0L : sizeEstimator.applyAsLong(image);
+      if (size <= 0L && decodedImages > 0) {
+        // The images of a series have generally the same size
+        size = decodedBytes / decodedImages;
+      }
+      return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fireLoaded(ImageElement image) {
+      if (listener != null) {
+        listener.accept((E) image);
+      }
+    }
+  }
+
+  private PreloadScheduler() {
+    this.worker = ThreadUtil.buildNewSingleThreadExecutor("Image Preloader"); // NON-NLS
+    this.jobs = new LinkedList<>();
+    this.requests = new HashMap<>();
+  }
+
+  public static PreloadScheduler getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * Starts or updates the preloading of a series. The other series keep being preloaded with a
+   * lower priority.
+   *
+   * @param series the series
+   * @param images the images in the display order
+   * @param index the index of the current image
+   * @param sizeEstimator gives the size in bytes of an image before decoding, can be null
+   * @param listener called when an image has been preloaded, can be null
+   */
+  public synchronized <E extends ImageElement> void start(
+      MediaSeries<E> series,
+      List<E> images,
+      int index,
+      ToLongFunction<? super E> sizeEstimator,
+      Consumer<? super E> listener) {
+    Objects.requireNonNull(series);
+    Objects.requireNonNull(images);
+    Job<?> previous = removeJob(series);
+    Job<E> job = new Job<>(series, List.copyOf(images), index, sizeEstimator, listener);
+    if (previous != null) {
+      job.direction = previous.direction;
+      job.decodedBytes = previous.decodedBytes;
+      job.decodedImages = previous.decodedImages;
+    }
+    jobs.addFirst(job);
+    while (jobs.size() > MAX_SERIES) {
+      cancelRequests(jobs.removeLast());
+    }
+    wakeUp();
+  }
+
+  /**
+   * Moves the current image of a preloaded series. The interaction pauses the preloading behind the
+   * current image.
+   *
+   * @param series the series
+   * @param image the image displayed
+   */
+  public synchronized void moveTo(MediaSeries<?> series, ImageElement image) {
+    Job<?> job = getJob(series);
+    Integer index = job == null || image == null ? null : job.indexes.get(image);
+    if (index != null && index != job.index) {
+      job.direction = Integer.signum(index - job.index);
+      job.index = index;
+      if (jobs.getFirst() != job) {
+        jobs.remove(job);
+        jobs.addFirst(job);
+      }
+      lastInteraction = System.nanoTime();
+      wakeUp();
+    }
+  }
+
+  /**
+   * Stops the preloading of a series and cancels its pending requests.
+   *
+   * @param series the series
+   */
+  public synchronized void stop(MediaSeries<?> series) {
+    Job<?> job = removeJob(series);
+    if (job != null) {
+      cancelRequests(job);
+      wakeUp();
+    }
+  }
+
+  public synchronized boolean isPreloading(MediaSeries<?> series) {
+    return getJob(series) != null;
+  }
+
+  private Job<?> getJob(MediaSeries<?> series) {
+    for (Job<?> job : jobs) {
+      if (job.series == series) {
+        return job;
+      }
+    }
+    return null;
+  }
+
+  private Job<?> removeJob(MediaSeries<?> series) {
+    Job<?> job = getJob(series);
+    if (job != null) {
+      jobs.remove(job);
+    }
+    return job;
+  }
+
+  private void cancelRequests(Job<?> job) {
+    Iterator<Request> it = requests.values().iterator();
+    while (it.hasNext()) {
+      Request r = it.next();
+      if (r.job() == job) {
+        // The running requests complete and their images remain in the cache
+        r.image().cancelImageLoading(Priority.PRELOAD);
+        it.remove();
+      }
+    }
+  }
+
+  private void wakeUp() {
+    dirty = true;
+    if (running) {
+      notifyAll();
+    } else {
+      running = true;
+      worker.execute(this::run);
+    }
+  }
+
+  private void run() {
+    List<Request> done = new ArrayList<>();
+    try {
+      while (true) {
+        synchronized (this) {
+          collectDoneRequests(done);
+          if (jobs.isEmpty() && requests.isEmpty()) {
+            running = false;
+            return;
+          }
+          if (dirty || (paused && System.nanoTime() - lastInteraction >= INTERACTION_DELAY)) {
+            dirty = false;
+            schedule();
+          }
+          if (done.isEmpty()) {
+            // Woken up by a change of the series or a completed request (see onRequestDone)
+            wait(paused ? getResumeDelay() : 0L);
+          }
+        }
+        notifyLoaded(done);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      LOGGER.error("Preloading images", e);
+    } finally {
+      synchronized (this) {
+        if (running) {
+          running = false;
+          requests.keySet().forEach(img -> img.cancelImageLoading(Priority.PRELOAD));
+          requests.clear();
+        }
+      }
+    }
+  }
+
+  /** Called by the decoding thread when a request is completed or cancelled. */
+  private synchronized void onRequestDone() {
+    notifyAll();
+  }
+
+  /**
+   * @return the delay in milliseconds before resuming the preloading paused by an interaction
+   */
+  private long getResumeDelay() {
+    long remaining = INTERACTION_DELAY - (System.nanoTime() - lastInteraction);
+    return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(remaining));
+  }
+
+  private void collectDoneRequests(List<Request> done) {
+    Iterator<Request> it = requests.values().iterator();
+    while (it.hasNext()) {
+      Request r = it.next();
+      if (r.future().isDone()) {
+        it.remove();
+        done.add(r);
+        dirty = true;
+      }
+    }
+  }
+
+  private void notifyLoaded(List<Request> done) {
+    for (Request r : done) {
+      try {
+        PlanarImage img = r.future().get();
+        if (img != null) {
+          synchronized (this) {
+            r.job().decodedBytes += img.physicalBytes();
+            r.job().decodedImages++;
+          }
+          r.job().fireLoaded(r.image());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (CancellationException e) {
+        LOGGER.debug("Preloading has been cancelled: {}", r.image());
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof OutOfMemoryError) {
+          LOGGER.error("Out of memory when loading image: {}", r.image(), e);
+          CvUtil.runGarbageCollectorAndWait(50);
+        } else {
+          LOGGER.error("Cannot preload image: {}", r.image(), e);
+        }
+      }
+    }
+    done.clear();
+  }
+
+  /** Requests the images that fit in the budget and cancels the pending requests left out. */
+  private void schedule() {
+    boolean interacting = System.nanoTime() - lastInteraction < INTERACTION_DELAY;
+    paused = interacting;
+    int threads = DecodeScheduler.getInstance().getThreadNumber();
+    int maxRequests = interacting ? threads : threads * 2;
+    long budget = getBudget();
+    long planned = 0L;
+    Set<ImageElement> wanted = new HashSet<>();
+
+    loop:
+    for (Job<?> job : jobs) {
+      for (int i : getLoadingOrder(job.images.size(), job.index, job.direction, interacting)) {
+        planned += estimateSize(job, i);
+        if (planned > budget) {
+          break loop;
+        }
+        ImageElement img = job.images.get(i);
+        if (img.isReadable()) {
+          wanted.add(img);
+          if (requests.size() < maxRequests
+              && !requests.containsKey(img)
+              && !img.isImageInCache()) {
+            Future<PlanarImage> future =
+                img.requestImageLoading(Priority.PRELOAD, this::onRequestDone);
+            requests.put(img, new Request(job, img, future));
+          }
+        }
+      }
+      if (interacting) {
+        // Only the series being scrolled
+        break;
+      }
+    }
+
+    Iterator<Request> it = requests.values().iterator();
+    while (it.hasNext()) {
+      ImageElement img = it.next().image();
+      if (!wanted.contains(img) && img.cancelImageLoading(Priority.PRELOAD)) {
+        it.remove();
+      }
+    }
+  }
+
+  private static <E extends ImageElement> long estimateSize(Job<E> job, int index) {
+    return job.estimateSize(job.images.get(index));
+  }
+
+  private static long getBudget() {
+    int ratio =
+        GuiUtils.getUICore().getSystemPreferences().getIntProperty(P_CACHE_RATIO, 75);
+    return ImageElement.getCache().getMaxNativeMemory() / 100L * Math.clamp(ratio, 1, 100);
+  }
+
+  /**
+   * Gives the indexes of the images from the current one and outward: two images in the direction
+   * of the scroll for one image behind.
+   *
+   * @param size the number of images
+   * @param index the index of the current image
+   * @param direction the direction of the scroll (1, -1 or 0 when unknown)
+   * @param aheadOnly true to give only the images in the direction of the scroll
+   * @return the indexes in the loading order
+   */
+  static int[] getLoadingOrder(int size, int index, int direction, boolean aheadOnly) {
+    if (size <= 0 || index < 0 || index >= size) {
+      return new int[0];
+    }
+    int step = direction < 0 ? -1 : 1;
+    int aheadPerBehind = direction == 0 ? 1 : 2;
+    boolean behindAllowed = !aheadOnly || direction == 0;
+    int[] order = new int[size];
+    int n = 0;
+    order[n++] = index;
+    int ahead = index + step;
+    int behind = index - step;
+    while (n < size) {
+      boolean added = false;
+      for (int k = 0; k < aheadPerBehind && ahead >= 0 && ahead < size; k++) {
+        order[n++] = ahead;
+        ahead += step;
+        added = true;
+      }
+      if (behindAllowed && behind >= 0 && behind < size) {
+        order[n++] = behind;
+        behind -= step;
+        added = true;
+      }
+      if (!added) {
+        break;
+      }
+    }
+    return n == size ? order : Arrays.copyOf(order, n);
+  }
+
+  private static final class Holder {
+    private static final PreloadScheduler INSTANCE = new PreloadScheduler();
+  }
+}
@@ -25,6 +25,8 @@
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.swing.SwingUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +54,8 @@
   protected final List<E> medias;
   protected final Map<Comparator<E>, List<E>> sortedMedias = new HashMap<>(6);
   protected final Comparator<E> mediaOrder;
+  // Values of the identifier tag of the media (see getMediaIdentifierTag())
+  protected final Set<Object> mediaIdentifiers = ConcurrentHashMap.newKeySet();
   protected SeriesImporter seriesLoader;
   private long fileSize;
 
@@ -79,6 +83,7 @@ protected Series(
       ls.sort(mediaOrder);
     }
     medias = Collections.synchronizedList(ls);
+    addToMediaIdentifiers(ls);
   }
 
   private static DataFlavor createConstant(String mt, String prn) {
@@ -90,7 +95,29 @@ private static DataFlavor createConstant(String mt, String prn) {
     }
   }
 
-  protected void resetSortedMediasMap() {
+  /**
+   * Returns the tag identifying a media in the series. The values of this tag are indexed, so
+   * {@link #hasMediaContains(TagW, Object)} does not need to read all the media.
+   *
+   * @return the tag or null when the media are not indexed
+   */
+  protected TagW getMediaIdentifierTag() {
+    return null;
+  }
+
+  private void addToMediaIdentifiers(Collection<? extends E> c) {
+    TagW tag = getMediaIdentifierTag();
+    if (tag != null) {
+      for (E media : c) {
+        Object val = media.getTagValue(tag);
+        if (val != null) {
+          mediaIdentifiers.add(val);
+        }
+      }
+    }
+  }
+
+  protected synchronized void resetSortedMediasMap() {
     if (!sortedMedias.isEmpty()) {
       sortedMedias.clear();
     }
@@ -100,39 +127,110 @@ protected void resetSortedMediasMap() {
   public List<E> getSortedMedias(Comparator<E> comparator) {
     // Do not sort when it is the default order.
     if (comparator != null && !comparator.equals(mediaOrder)) {
-      return sortedMedias.computeIfAbsent(
-          comparator,
-          k -> {
-            List<E> sorted = new ArrayList<>(medias);
-            sorted.sort(comparator);
-            return sorted;
-          });
+      synchronized (this) {
+        return sortedMedias.computeIfAbsent(
+            comparator,
+            k -> {
+              List<E> sorted = new ArrayList<>(medias);
+              sorted.sort(comparator);
+              return sorted;
+            });
+      }
     }
     return medias;
   }
 
+  /**
+   * Inserts the new media in the sorted views with a binary search instead of sorting again the
+   * whole views. When many media are added at once, the views are rebuilt at the next request.
+   *
+   * <p>The views returned by {@link #getSortedMedias(Comparator)} are read without the lock of the
+   * series, so they are never modified: a new view replaces the previous one. The caller holds the
+   * lock of the series while adding the media to the list and to the views, otherwise a view built
+   * in between would already contain them.
+   */
+  private void addToSortedMedias(Collection<? extends E> c) {
+    if (sortedMedias.isEmpty()) {
+      return;
+    }
+    if (c.size() > 1 && c.size() > medias.size() / 4) {
+      sortedMedias.clear();
+      return;
+    }
+    for (Map.Entry<Comparator<E>, List<E>> entry : sortedMedias.entrySet()) {
+      Comparator<E> comparator = entry.getKey();
+      List<E> sorted = new ArrayList<>(entry.getValue().size() + c.size());
+      sorted.addAll(entry.getValue());
+      for (E media : c) {
+        sorted.add(upperBound(sorted, media, comparator), media);
+      }
+      entry.setValue(sorted);
+    }
+  }
+
+  private static <T> int lowerBound(List<T> list, T key, Comparator<? super T> comparator) {
+    int low = 0;
+    int high = list.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (comparator.compare(list.get(mid), key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static <T> int upperBound(List<T> list, T key, Comparator<? super T> comparator) {
+    // Insert after the equal elements to keep the order of a stable sort
+    int low = 0;
+    int high = list.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (comparator.compare(list.get(mid), key) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
   @Override
   public void add(E media) {
-    medias.add(media);
-    resetSortedMediasMap();
+    synchronized (this) {
+      medias.add(media);
+      addToSortedMedias(List.of(media));
+    }
+    addToMediaIdentifiers(List.of(media));
   }
 
   @Override
   public void add(int index, E media) {
-    medias.add(index, media);
-    resetSortedMediasMap();
+    synchronized (this) {
+      medias.add(index, media);
+      addToSortedMedias(List.of(media));
+    }
+    addToMediaIdentifiers(List.of(media));
   }
 
   @Override
   public void addAll(Collection<? extends E> c) {
-    medias.addAll(c);
-    resetSortedMediasMap();
+    synchronized (this) {
+      medias.addAll(c);
+      addToSortedMedias(c);
+    }
+    addToMediaIdentifiers(c);
   }
 
   @Override
   public void addAll(int index, Collection<? extends E> c) {
-    medias.addAll(index, c);
-    resetSortedMediasMap();
+    synchronized (this) {
+      medias.addAll(index, c);
+      addToSortedMedias(c);
+    }
+    addToMediaIdentifiers(c);
   }
 
   @Override
@@ -190,6 +288,26 @@ public final int getImageIndex(E source, Filter<E> filter, Comparator<E> sort) {
     if (source == null) {
       return -1;
     }
+    if (filter == null) {
+      List<E> sortedList = getSortedMedias(sort);
+      Comparator<E> comparator = sort == null ? mediaOrder : sort;
+      if (comparator != null) {
+        synchronized (medias) {
+          // Binary search in the sorted list, then look for the same instance among the equal ones
+          int size = sortedList.size();
+          for (int i = lowerBound(sortedList, source, comparator); i < size; i++) {
+            E e = sortedList.get(i);
+            if (e == source) {
+              return i;
+            }
+            if (comparator.compare(e, source) != 0) {
+              break;
+            }
+          }
+        }
+        // Not found: the list may not be sorted (e.g. media inserted at a given position)
+      }
+    }
     Iterable<E> list = getMedias(filter, sort);
     synchronized (medias) {
       int index = 0;
@@ -253,6 +371,7 @@ public synchronized void dispose() {
         });
 
     medias.clear();
+    mediaIdentifiers.clear();
     resetSortedMediasMap();
 
     Optional.ofNullable((Thumbnail) getTagValue(TagW.Thumbnail)).ifPresent(Thumbnail::dispose);
@@ -400,6 +519,9 @@ public void setFocused(boolean focused) {
 
   public boolean hasMediaContains(TagW tag, Object val) {
     if (val != null) {
+      if (tag != null && tag.equals(getMediaIdentifierTag())) {
+        return mediaIdentifiers.contains(val);
+      }
       synchronized (medias) {
         for (E media : medias) {
           if (val.equals(media.getTagValue(tag))) {
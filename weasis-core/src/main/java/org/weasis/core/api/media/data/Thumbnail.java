@@ -24,6 +24,7 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -41,6 +42,7 @@
 import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.image.OpManager;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
 import org.weasis.core.api.util.ResourceUtil;
 import org.weasis.core.api.util.ResourceUtil.FileIcon;
 import org.weasis.core.api.util.ThreadUtil;
@@ -280,7 +282,7 @@ private void loadThumbnail(
       }
       if (noPath) {
         if (media instanceof final ImageElement image) {
-          PlanarImage imgPl = image.getImage(opManager);
+          PlanarImage imgPl = image.getImage(opManager, true, Priority.THUMBNAIL);
           if (imgPl != null) {
             PlanarImage img = image.getRenderedImage(imgPl);
             final PlanarImage thumb = createThumbnail(img);
@@ -325,8 +327,9 @@ private void loadThumbnail(
         }
       } else {
         Load ref = new Load(file);
-        // loading images sequentially, only one thread pool
-        Future<PlanarImage> future = ImageElement.IMAGE_LOADER.submit(ref);
+        // Thumbnails have the lowest priority for decoding
+        Future<PlanarImage> future =
+            DecodeScheduler.getInstance().submit(file, Priority.THUMBNAIL, ref);
         PlanarImage thumb = null;
         try {
           PlanarImage img = future.get();
@@ -347,6 +350,8 @@ private void loadThumbnail(
           Thread.currentThread().interrupt();
           // We don't need the result, so cancel the task too
           future.cancel(true);
+        } catch (CancellationException e) {
+          LOGGER.debug("Reading thumbnail has been cancelled: {}", file);
         } catch (ExecutionException e) {
           LOGGER.error("Cannot read thumbnail pixel data!: {}", file, e);
         }
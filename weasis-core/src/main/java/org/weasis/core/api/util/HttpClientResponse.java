@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpClient.Version;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+
+/**
+ * Response of a request sent with the shared {@link java.net.http.HttpClient} of {@link
+ * NetworkUtil}. The body is decompressed according to the Content-Encoding header.
+ *
+ * <p>Closing the response or its input stream releases the connection slot of the host, so the
+ * response must always be closed.
+ *
+ * <p>The timeout of the request only bounds the wait for the headers. Like the read timeout of
+ * {@link java.net.URLConnection}, each read of the body fails with a {@link SocketTimeoutException}
+ * when no data is received during the read timeout: a watchdog closes the body and interrupts the
+ * blocked thread.
+ */
+public class HttpClientResponse implements HttpResponse {
+
+  private final java.net.http.HttpResponse<InputStream> response;
+  private final Runnable release;
+  private final AtomicBoolean closed;
+  private final long readTimeout;
+  private InputStream inputStream;
+  private TimeoutInputStream timeoutStream;
+
+  /**
+   * @param response the response with the body as a stream
+   * @param release the operation releasing the connection slot of the host
+   * @param readTimeout the maximum time in milliseconds of a read of the body, 0 for no limit
+   */
+  HttpClientResponse(
+      java.net.http.HttpResponse<InputStream> response, Runnable release, long readTimeout) {
+    this.response = Objects.requireNonNull(response);
+    this.release = release;
+    this.closed = new AtomicBoolean(false);
+    this.readTimeout = readTimeout;
+  }
+
+  @Override
+  public synchronized InputStream getInputStream() throws IOException {
+    if (inputStream == null) {
+      InputStream in = response.body();
+      if (readTimeout > 0) {
+        timeoutStream = new TimeoutInputStream(in, readTimeout);
+        in = timeoutStream;
+      }
+      String encoding = getHeaderField("Content-Encoding");
+      if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) { // NON-NLS
+        in = new GZIPInputStream(in);
+      } else if ("deflate".equalsIgnoreCase(encoding)) { // NON-NLS
+        in = new InflaterInputStream(in);
+      }
+      TimeoutInputStream watched = timeoutStream;
+      inputStream =
+          new FilterInputStream(in) {
+            @Override
+            public void close() throws IOException {
+              try {
+                super.close();
+              } finally {
+                if (watched != null) {
+                  Watchdog.unregister(watched);
+                }
+                releaseConnection();
+              }
+            }
+          };
+    }
+    return inputStream;
+  }
+
+  @Override
+  public int getResponseCode() {
+    return response.statusCode();
+  }
+
+  @Override
+  public String getHeaderField(String key) {
+    return response.headers().firstValue(key).orElse(null);
+  }
+
+  @Override
+  public String getResponseMessage() {
+    // HTTP/2 has no reason phrase
+    return StringUtil.EMPTY_STRING;
+  }
+
+  public Version getVersion() {
+    return response.version();
+  }
+
+  public java.net.http.HttpResponse<InputStream> getResponse() {
+    return response;
+  }
+
+  @Override
+  public void close() {
+    // Closing the body discards the remaining bytes, then the connection returns to the pool
+    FileUtil.safeClose(response.body());
+    TimeoutInputStream watched = getTimeoutStream();
+    if (watched != null) {
+      Watchdog.unregister(watched);
+    }
+    releaseConnection();
+  }
+
+  private synchronized TimeoutInputStream getTimeoutStream() {
+    return timeoutStream;
+  }
+
+  private void releaseConnection() {
+    if (closed.compareAndSet(false, true) && release != null) {
+      release.run();
+    }
+  }
+
+  /** Body stream whose blocking reads are interrupted after the read timeout. */
+  private final class TimeoutInputStream extends FilterInputStream {
+    private final long timeoutNanos;
+    private Thread reader;
+    private long readStart;
+    private boolean timedOut;
+
+    TimeoutInputStream(InputStream in, long readTimeout) {
+      super(in);
+      this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(readTimeout);
+      Watchdog.register(this);
+    }
+
+    @Override
+    public int read() throws IOException {
+      begin();
+      try {
+        return super.read();
+      } catch (IOException e) {
+        throw failure(e);
+      } finally {
+        end();
+      }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      begin();
+      try {
+        return super.read(b, off, len);
+      } catch (IOException e) {
+        throw failure(e);
+      } finally {
+        end();
+      }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      begin();
+      try {
+        return super.skip(n);
+      } catch (IOException e) {
+        throw failure(e);
+      } finally {
+        end();
+      }
+    }
+
+    private synchronized void begin() throws SocketTimeoutException {
+      if (timedOut) {
+        throw new SocketTimeoutException("Read timed out");
+      }
+      reader = Thread.currentThread();
+      readStart = System.nanoTime();
+    }
+
+    private synchronized void end() {
+      reader = null;
+      if (timedOut) {
+        // Clear the interruption of the watchdog, the read fails with a timeout instead
+        Thread.interrupted();
+      }
+    }
+
+    private synchronized IOException failure(IOException e) {
+      if (timedOut) {
+        SocketTimeoutException timeout = new SocketTimeoutException("Read timed out");
+        timeout.initCause(e);
+        return timeout;
+      }
+      return e;
+    }
+
+    /** Called by the watchdog: closes the body and interrupts the read when it is too long. */
+    synchronized void checkTimeout(long now) {
+      if (reader != null && !timedOut && now - readStart > timeoutNanos) {
+        timedOut = true;
+        FileUtil.safeClose(response.body());
+        reader.interrupt();
+      }
+    }
+  }
+
+  /** Checks the blocked reads every second, only while some bodies are read. */
+  private static final class Watchdog {
+    private static final ScheduledExecutorService EXECUTOR =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = ThreadUtil.getThreadFactory("Http Read Watchdog").newThread(r); // NON-NLS
+              t.setDaemon(true);
+              return t;
+            });
+    private static final Set<TimeoutInputStream> STREAMS = ConcurrentHashMap.newKeySet();
+    private static ScheduledFuture<?> task;
+
+    private Watchdog() {}
+
+    static synchronized void register(TimeoutInputStream stream) {
+      STREAMS.add(stream);
+      if (task == null) {
+        task = EXECUTOR.scheduleWithFixedDelay(Watchdog::check, 1, 1, TimeUnit.SECONDS);
+      }
+    }
+
+    static synchronized void unregister(TimeoutInputStream stream) {
+      STREAMS.remove(stream);
+      if (STREAMS.isEmpty() && task != null) {
+        task.cancel(false);
+        task = null;
+      }
+    }
+
+    private static void check() {
+      long now = System.nanoTime();
+      for (TimeoutInputStream stream : STREAMS) {
+        stream.checkTimeout(now);
+      }
+    }
+  }
+}
@@ -17,16 +17,31 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.Authenticator;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.ProxySelector;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.auth.AuthMethod;
@@ -40,6 +55,12 @@ public class NetworkUtil {
 
   private static final int MAX_REDIRECTS = 3;
 
+  // Headers managed by the HTTP client
+  private static final Set<String> RESTRICTED_HEADERS =
+      Set.of("connection", "content-length", "expect", "host", "upgrade"); // NON-NLS
+
+  private static final Map<String, Semaphore> HOST_CONNECTIONS = new ConcurrentHashMap<>();
+
   private NetworkUtil() {}
 
   public static int getUrlConnectionTimeout() {
@@ -50,6 +71,21 @@ public static int getUrlReadTimeout() {
     return StringUtil.getInt(System.getProperty("UrlReadTimeout"), 15000);
   }
 
+  /**
+   * @return true if the GET requests are sent with the shared HTTP client (connection reuse and
+   *     HTTP/2), otherwise a new HttpURLConnection is opened for each request
+   */
+  public static boolean isHttpClientEnabled() {
+    return !"false".equalsIgnoreCase(System.getProperty("HttpClientEnabled")); // NON-NLS
+  }
+
+  /**
+   * @return the maximum number of concurrent requests to the same host with the shared HTTP client
+   */
+  public static int getMaxConnectionsPerHost() {
+    return Math.max(1, StringUtil.getInt(System.getProperty("HttpMaxConnectionsPerHost"), 8));
+  }
+
   public static URI getURI(String pathOrUri) throws MalformedURLException, URISyntaxException {
     URI uri = null;
     if (!pathOrUri.startsWith("http")) { // NON-NLS
@@ -76,6 +112,12 @@ public static HttpResponse getHttpResponse(
   public static HttpResponse getHttpResponse(
       String url, URLParameters urlParameters, AuthMethod authMethod, OAuthRequest authRequest)
       throws IOException {
+    if (authRequest == null && !urlParameters.isHttpPost() && isHttpClientEnabled()) {
+      HttpResponse response = getHttpClientResponse(url, urlParameters, authMethod);
+      if (response != null) {
+        return response;
+      }
+    }
     if (authMethod == null || OAuth2ServiceFactory.noAuth.equals(authMethod)) {
       return prepareConnection(new URL(url).openConnection(), urlParameters);
     }
@@ -97,6 +139,118 @@ public static ClosableURLConnection getUrlConnection(URL url, URLParameters urlP
     return prepareConnection(url.openConnection(), urlParameters);
   }
 
+  /**
+   * Sends a GET request with the shared HTTP client. The connections are kept alive and reused by
+   * the next requests (with HTTP/2, the requests to the same host are multiplexed on a single
+   * connection).
+   *
+   * @return the response or null when the URL is not supported by the HTTP client
+   */
+  private static HttpClientResponse getHttpClientResponse(
+      String url, URLParameters urlParameters, AuthMethod authMethod) throws IOException {
+    URI uri;
+    try {
+      uri = new URL(url).toURI();
+    } catch (URISyntaxException e) {
+      // Not strictly valid URI, let HttpURLConnection handle it
+      return null;
+    }
+    String scheme = uri.getScheme();
+    if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) { // NON-NLS
+      return null;
+    }
+
+    boolean auth = authMethod != null && !OAuth2ServiceFactory.noAuth.equals(authMethod);
+    HttpClientResponse response = sendRequest(uri, urlParameters, auth ? authMethod : null);
+    if (auth && response.getResponseCode() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+      // The access token has probably expired, get a new one and send again the request
+      response.close();
+      authMethod.resetToken();
+      response = sendRequest(uri, urlParameters, authMethod);
+    }
+
+    int code = response.getResponseCode();
+    if (!auth && (code < HttpURLConnection.HTTP_OK || code >= HttpURLConnection.HTTP_MULT_CHOICE)) {
+      // Same behavior as readResponse()
+      LOGGER.warn("http Status {} - {}", code, url);
+      response.close();
+      throw new HttpStatusException(code, "http Status " + code);
+    }
+    return response;
+  }
+
+  private static HttpClientResponse sendRequest(
+      URI uri, URLParameters urlParameters, AuthMethod authMethod) throws IOException {
+    URI requestUri = uri;
+    Map<String, String> authHeaders = Map.of();
+    if (authMethod != null) {
+      OAuth20Service service = OAuth2ServiceFactory.getService(authMethod);
+      if (service == null) {
+        throw new IllegalStateException("Not a valid authentication method: " + authMethod);
+      }
+      // Let the service sign the request (header or query parameter)
+      OAuthRequest request = new OAuthRequest(Verb.GET, uri.toString());
+      service.signRequest(authMethod.getToken(), request);
+      requestUri = URI.create(request.getCompleteUrl());
+      authHeaders = request.getHeaders();
+    }
+
+    HttpRequest.Builder builder =
+        HttpRequest.newBuilder(requestUri)
+            .timeout(Duration.ofMillis(Math.max(1, urlParameters.getReadTimeout())))
+            .GET();
+    boolean acceptEncoding = false;
+    for (Map<String, String> headers :
+        List.of(urlParameters.getUnmodifiableHeaders(), authHeaders)) {
+      for (Entry<String, String> element : headers.entrySet()) {
+        String key = element.getKey();
+        if (key != null && element.getValue() != null && !isRestrictedHeader(key)) {
+          builder.setHeader(key, element.getValue());
+          acceptEncoding |= "Accept-Encoding".equalsIgnoreCase(key); // NON-NLS
+        }
+      }
+    }
+    if (!acceptEncoding) {
+      builder.setHeader("Accept-Encoding", "gzip, deflate"); // NON-NLS
+    }
+    if (urlParameters.getIfModifiedSince() > 0) {
+      builder.setHeader(
+          "If-Modified-Since", // NON-NLS
+          DateTimeFormatter.RFC_1123_DATE_TIME.format(
+              Instant.ofEpochMilli(urlParameters.getIfModifiedSince()).atZone(ZoneOffset.UTC)));
+    }
+    builder.setHeader("User-Agent", AppProperties.WEASIS_USER_AGENT); // NON-NLS
+    builder.setHeader("Weasis-User", AppProperties.WEASIS_USER); // NON-NLS
+
+    Semaphore connections =
+        HOST_CONNECTIONS.computeIfAbsent(
+            requestUri.getScheme() + "://" + requestUri.getAuthority(),
+            k -> new Semaphore(getMaxConnectionsPerHost(), true));
+    try {
+      connections.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StreamIOException(e);
+    }
+    try {
+      return new HttpClientResponse(
+          HttpClientHolder.CLIENT.send(builder.build(), BodyHandlers.ofInputStream()),
+          connections::release,
+          urlParameters.getReadTimeout());
+    } catch (InterruptedException e) {
+      connections.release();
+      Thread.currentThread().interrupt();
+      throw new StreamIOException(e);
+    } catch (IOException | RuntimeException e) {
+      connections.release();
+      throw e;
+    }
+  }
+
+  private static boolean isRestrictedHeader(String key) {
+    return RESTRICTED_HEADERS.contains(key.toLowerCase(Locale.ROOT));
+  }
+
   private static void updateHeadersWithAppProperties(URLConnection urlConnection) {
     urlConnection.setRequestProperty("User-Agent", AppProperties.WEASIS_USER_AGENT);
     urlConnection.setRequestProperty("Weasis-User", AppProperties.WEASIS_USER);
@@ -181,7 +335,7 @@ public static URLConnection readResponse(
       if (LOGGER.isTraceEnabled()) {
         writeErrorResponse(httpURLConnection);
       }
-      throw new StreamIOException(httpURLConnection.getResponseMessage());
+      throw new HttpStatusException(code, httpURLConnection.getResponseMessage());
     }
     return httpURLConnection;
   }
@@ -252,4 +406,28 @@ private static void writeErrorResponse(HttpURLConnection httpURLConnection) thro
       }
     }
   }
+
+  private static final class HttpClientHolder {
+    private static final HttpClient CLIENT = buildHttpClient();
+
+    private static HttpClient buildHttpClient() {
+      HttpClient.Builder builder =
+          HttpClient.newBuilder()
+              .version(HttpClient.Version.HTTP_2)
+              .followRedirects(HttpClient.Redirect.NORMAL)
+              .connectTimeout(Duration.ofMillis(Math.max(1, getUrlConnectionTimeout())))
+              .executor(
+                  Executors.newCachedThreadPool(ThreadUtil.getThreadFactory("Http Client")));
+      // Same proxy and authentication configuration as HttpURLConnection
+      ProxySelector proxySelector = ProxySelector.getDefault();
+      if (proxySelector != null) {
+        builder.proxy(proxySelector);
+      }
+      Authenticator authenticator = Authenticator.getDefault();
+      if (authenticator != null) {
+        builder.authenticator(authenticator);
+      }
+      return builder.build();
+    }
+  }
 }
@@ -33,10 +33,13 @@
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Future;
 import javax.swing.Action;
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JOptionPane;
@@ -66,8 +69,10 @@
 import org.weasis.core.api.image.util.KernelData;
 import org.weasis.core.api.image.util.MeasurableLayer;
 import org.weasis.core.api.image.util.Unit;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.MediaSeries;
+import org.weasis.core.api.media.data.PreloadScheduler;
 import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.SeriesComparator;
 import org.weasis.core.api.media.data.TagW;
@@ -118,6 +123,8 @@ public enum ZoomType {
   }
 
   public static final int MINIMAL_IMAGES_FOR_3D = 5;
+  /** Number of images decoded in advance on each side of the displayed image */
+  public static final int NEIGHBOR_IMAGES_TO_DECODE = 2;
 
   public static final GraphicClipboard GRAPHIC_CLIPBOARD = new GraphicClipboard();
 
@@ -146,6 +153,7 @@ public enum ZoomType {
   protected MediaSeries<E> series = null;
   protected LayerAnnotation infoLayer;
   protected int tileOffset;
+  private final Map<E, Future<PlanarImage>> neighborRequests = new HashMap<>();
 
   protected final ImageViewerEventManager<E> eventManager;
 
@@ -515,6 +523,7 @@ protected void setImage(E img) {
 
       setGraphicManager(new XmlGraphicModel());
       closeLens();
+      requestNeighborImages(null);
     } else {
       E oldImage = imageLayer.getSourceImage();
       if (!img.equals(oldImage)) {
@@ -540,6 +549,7 @@ protected void setImage(E img) {
         resetZoom();
 
         imageLayer.setImage(img, (OpManager) actionsInView.get(ActionW.PREPROCESSING.cmd()));
+        requestNeighborImages(img);
 
         if (AuditLog.LOGGER.isInfoEnabled()) {
           PlanarImage image = img.getImage();
@@ -571,6 +581,54 @@ protected void setImage(E img) {
     }
   }
 
+  /**
+   * Requests the decoding of the images next to the displayed one in the current order of the
+   * series. The previous requests of this view which are not started and no more in the
+   * neighborhood are cancelled, the requests of the same images by other views or by the preloader
+   * remain.
+   *
+   * @param img the displayed image, null to cancel all the previous requests
+   */
+  protected void requestNeighborImages(E img) {
+    if (img != null) {
+      // Follow the scroll direction when the series is preloaded
+      PreloadScheduler.getInstance().moveTo(series, img);
+    }
+    List<E> neighbors = new ArrayList<>();
+    int index = img == null ? -1 : getFrameIndex();
+    if (index >= 0) {
+      Filter<E> filter = (Filter<E>) actionsInView.get(ActionW.FILTERED_SERIES.cmd());
+      Comparator<E> sort = getCurrentSortComparator();
+      for (int i = 1; i <= NEIGHBOR_IMAGES_TO_DECODE; i++) {
+        Optional.ofNullable(series.getMedia(index + i, filter, sort)).ifPresent(neighbors::add);
+        Optional.ofNullable(series.getMedia(index - i, filter, sort)).ifPresent(neighbors::add);
+      }
+    }
+
+    Iterator<Entry<E, Future<PlanarImage>>> it = neighborRequests.entrySet().iterator();
+    while (it.hasNext()) {
+      Entry<E, Future<PlanarImage>> request = it.next();
+      E old = request.getKey();
+      if (request.getValue().isDone()) {
+        it.remove();
+      } else if (!neighbors.contains(old)) {
+        // Withdraw only the request of this view, each request is cancelled once
+        if (old != img) {
+          old.cancelImageLoading(Priority.NEIGHBOR);
+        }
+        it.remove();
+      }
+    }
+    for (E media : neighbors) {
+      if (media != img
+          && media.isReadable()
+          && !neighborRequests.containsKey(media)
+          && !media.isImageInCache()) {
+        neighborRequests.put(media, media.requestImageLoading(Priority.NEIGHBOR));
+      }
+    }
+  }
+
   public void updateGraphicManager(E img, boolean updateGraphics) {
     if (updateGraphics) {
       GraphicModel modelList = (GraphicModel) img.getTagValue(TagW.PresentationModel);
@@ -154,6 +154,8 @@ public void updateImage() {
   }
 
   public void showLens(boolean val) {
+    // The lens requires the whole image of the parent view before the affine transformation
+    view2d.getImageLayer().setViewportRendering(!val);
     if (val) {
       updateImage();
       refreshZoomWin();
@@ -10,11 +10,14 @@
 package org.weasis.core.ui.model.layer.imp;
 
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
 import java.awt.Point;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -56,13 +59,20 @@
   private final SimpleOpManager disOpManager;
   private final List<ImageLayerChangeListener<E>> listenerList;
   private final List<OpEventListener> opListeners;
+  private final ViewportRenderer viewportRenderer;
 
   private OpManager preprocessing;
   private E sourceImage;
   private PlanarImage displayImage;
   private Boolean visible = true;
   private boolean enableDispOperations = true;
+  private boolean viewportRendering = true;
   private Point offset;
+  private volatile ConvertedImage convertedImage;
+
+  /** Display image converted for Java2D, reused until the display image changes. */
+  private record ConvertedImage(
+      PlanarImage source, GraphicsConfiguration configuration, BufferedImage image) {}
 
   public RenderedImageLayer() {
     this(null);
@@ -72,6 +82,7 @@ public RenderedImageLayer(SimpleOpManager disOpManager) {
     this.disOpManager = Optional.ofNullable(disOpManager).orElseGet(SimpleOpManager::new);
     this.listenerList = new ArrayList<>();
     this.opListeners = new ArrayList<>();
+    this.viewportRenderer = new ViewportRenderer();
     addEventListener(this.disOpManager);
   }
 
@@ -119,6 +130,23 @@ public synchronized void setEnableDispOperations(boolean enabled) {
     }
   }
 
+  public synchronized boolean isViewportRendering() {
+    return viewportRendering;
+  }
+
+  /**
+   * Enables the processing of the visible region only for large images. It must be disabled when
+   * the whole image before the affine transformation is required (e.g. by the magnifier).
+   *
+   * @param viewportRendering true to process only the visible region
+   */
+  public synchronized void setViewportRendering(boolean viewportRendering) {
+    if (this.viewportRendering != viewportRendering) {
+      this.viewportRendering = viewportRendering;
+      updateDisplayOperations();
+    }
+  }
+
   @Override
   public void setVisible(Boolean visible) {
     this.visible = Optional.ofNullable(visible).orElse(getType().getVisible());
@@ -234,7 +262,7 @@ public void drawImage(Graphics2D g2d) {
         g2d.setRenderingHint(
             RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
       }
-      g2d.drawImage(ImageConversion.toBufferedImage(displayImage), 0, 0, null);
+      g2d.drawImage(getConvertedImage(g2d, displayImage), 0, 0, null);
     } catch (Exception e) {
       LOGGER.error("Cannot draw the image", e);
       if ("java.io.IOException: closed".equals(e.getMessage())) { // NON-NLS
@@ -254,6 +282,40 @@ public void drawImage(Graphics2D g2d) {
     g2d.setClip(clip);
   }
 
+  private BufferedImage getConvertedImage(Graphics2D g2d, PlanarImage image) {
+    GraphicsConfiguration gc = g2d.getDeviceConfiguration();
+    ConvertedImage converted = convertedImage;
+    if (converted == null || converted.source() != image || converted.configuration() != gc) {
+      converted =
+          new ConvertedImage(
+              image, gc, toCompatibleImage(ImageConversion.toBufferedImage(image), gc));
+      convertedImage = converted;
+    }
+    return converted.image();
+  }
+
+  /**
+   * Copies the image into an image compatible with the screen. Unlike the converted image that
+   * shares its data with the native matrix, this image can be cached in the video memory by Java2D
+   * and is painted without conversion.
+   */
+  private static BufferedImage toCompatibleImage(BufferedImage image, GraphicsConfiguration gc) {
+    if (image == null
+        || gc == null
+        || gc.getDevice().getType() != GraphicsDevice.TYPE_RASTER_SCREEN) {
+      return image;
+    }
+    BufferedImage compatible =
+        gc.createCompatibleImage(image.getWidth(), image.getHeight(), image.getTransparency());
+    Graphics2D g = compatible.createGraphics();
+    try {
+      g.drawImage(image, 0, 0, null);
+    } finally {
+      g.dispose();
+    }
+    return compatible;
+  }
+
   public void drawImageForPrinter(Graphics2D g2d, double viewScale, Canvas canvas) {
     // Get the clipping rectangle
     if (!visible || displayImage == null) {
@@ -398,6 +460,8 @@ public void drawImageForPrinter(Graphics2D g2d, double viewScale, Canvas canvas)
   public void dispose() {
     sourceImage = null;
     displayImage = null;
+    convertedImage = null;
+    viewportRenderer.clear();
     listenerList.clear();
     opListeners.clear();
   }
@@ -455,11 +519,59 @@ public void updateDisplayOperations() {
       if (source != null && source.width() < 1) {
         disOpManager.setFirstNode(getSourceRenderedImage());
       }
-      displayImage = disOpManager.process();
+      displayImage = processDisplayOperations();
+      // The operations may return the same instance with new data
+      convertedImage = null;
       fireImageChanged();
     }
   }
 
+  /**
+   * Processes the display operations. When all the operations before the affine transformation
+   * are independent of the region, they are applied only on the visible tiles of a large image, at
+   * the resolution level of the display.
+   */
+  private PlanarImage processDisplayOperations() {
+    ImageOpNode affine = disOpManager.getNode(AffineTransformOp.OP_NAME);
+    ViewportRenderer.ViewportImage viewport = null;
+    PlanarImage source = disOpManager.getFirstNodeInputImage();
+    if (viewportRendering && affine != null && affine.isEnabled() && isRegionIndependent(affine)) {
+      viewport =
+          viewportRenderer.build(
+              source,
+              (List<Double>) affine.getParam(AffineTransformOp.P_AFFINE_MATRIX),
+              (Rectangle2D) affine.getParam(AffineTransformOp.P_DST_BOUNDS));
+    } else {
+      viewportRenderer.clear();
+    }
+    if (viewport == null) {
+      return disOpManager.process();
+    }
+
+    Object matrix = affine.getParam(AffineTransformOp.P_AFFINE_MATRIX);
+    disOpManager.setFirstNode(viewport.image());
+    affine.setParam(AffineTransformOp.P_AFFINE_MATRIX, viewport.matrix());
+    try {
+      return disOpManager.process();
+    } finally {
+      // Keep the parameters of the whole image for the other users of the manager
+      affine.setParam(AffineTransformOp.P_AFFINE_MATRIX, matrix);
+      disOpManager.setFirstNode(source);
+    }
+  }
+
+  private boolean isRegionIndependent(ImageOpNode affine) {
+    for (ImageOpNode op : disOpManager.getOperations()) {
+      if (op == affine) {
+        return true;
+      }
+      if (op.isEnabled() && !op.isRegionIndependent()) {
+        return false;
+      }
+    }
+    return false;
+  }
+
   @Override
   public MeasurementsAdapter getMeasurementAdapter(Unit displayUnit) {
     if (hasContent()) {
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.ui.model.layer.imp;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.List;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.image.cv.ImagePyramid;
+import org.weasis.core.util.StringUtil;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
+import org.weasis.opencv.op.ImageProcessor;
+
+/**
+ * Builds the part of a large image that is visible in a view. The region is aligned on tiles of
+ * 512x512 pixels and taken from a resolution level (power of two reduction) close to the display
+ * resolution, so the display operations are applied only on the visible pixels.
+ *
+ * <p>The region is kept while it covers the view: panning inside the same tiles returns the same
+ * image instance and the operation manager reuses its previous outputs. When the image has an
+ * {@link ImagePyramid}, the reduced levels are read from its tiles instead of being computed.
+ * Otherwise, only the last reduced level is kept (at most a quarter of the full image) and it is
+ * released as soon as another level or another image is displayed.
+ */
+final class ViewportRenderer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ViewportRenderer.class);
+
+  /** Minimum number of pixels of an image to render only the visible region (4 MP by default). */
+  static final String P_MIN_SIZE = "weasis.display.viewport.min.size";
+
+  static final int TILE_SIZE = ImagePyramid.TILE_SIZE;
+  private static final int MAX_LEVELS = 8;
+  private static final long MIN_SIZE =
+      StringUtil.getInt(System.getProperty(P_MIN_SIZE), 4 * 1024 * 1024);
+
+  /**
+   * @param image the region of the image at the resolution level
+   * @param matrix the affine matrix transforming the region to the view
+   */
+  record ViewportImage(PlanarImage image, List<Double> matrix) {}
+
+  private record Region(int level, Rectangle bounds, PlanarImage image) {}
+
+  private PlanarImage source;
+  private PlanarImage levelImage;
+  private int levelIndex;
+  private Region region;
+
+  /**
+   * @param image the full image
+   * @param matrix the affine matrix transforming the full image to the view
+   * @param viewBounds the bounds of the image in the view
+   * @return the visible region or null when the whole image must be processed
+   */
+  ViewportImage build(PlanarImage image, List<Double> matrix, Rectangle2D viewBounds) {
+    if (image == null
+        || matrix == null
+        || matrix.size() != 6
+        || viewBounds == null
+        || viewBounds.isEmpty()
+        || (long) image.width() * image.height() < MIN_SIZE) {
+      clear();
+      return null;
+    }
+    if (image != source) {
+      clear();
+      source = image;
+    }
+
+    AffineTransform transform =
+        new AffineTransform(
+            matrix.get(0),
+            matrix.get(3),
+            matrix.get(1),
+            matrix.get(4),
+            matrix.get(2),
+            matrix.get(5));
+    Rectangle2D area;
+    try {
+      area =
+          transform
+              .createInverse()
+              .createTransformedShape(
+                  new Rectangle2D.Double(0, 0, viewBounds.getWidth(), viewBounds.getHeight()))
+              .getBounds2D();
+    } catch (NoninvertibleTransformException e) {
+      return null;
+    }
+
+    // Take the lowest resolution that is not below the display resolution
+    ImagePyramid pyramid = ImagePyramid.get(image);
+    int maxLevel = pyramid == null ? MAX_LEVELS : pyramid.getMaxLevel();
+    double scale = Math.sqrt(Math.abs(transform.getDeterminant()));
+    int level = 0;
+    while (level < maxLevel
+        && scale * (2 << level) <= 1.0
+        && image.width() >> (level + 1) > 0
+        && image.height() >> (level + 1) > 0) {
+      level++;
+    }
+    int factor = 1 << level;
+    int width = ImagePyramid.getLevelSize(image.width(), level);
+    int height = ImagePyramid.getLevelSize(image.height(), level);
+
+    // One pixel of margin for the interpolation, then align on the tiles
+    int x0 = Math.max(0, (int) Math.floor(area.getMinX() / factor) - 1) / TILE_SIZE * TILE_SIZE;
+    int y0 = Math.max(0, (int) Math.floor(area.getMinY() / factor) - 1) / TILE_SIZE * TILE_SIZE;
+    int x1 = Math.min(width, ceilTile((int) Math.ceil(area.getMaxX() / factor) + 1));
+    int y1 = Math.min(height, ceilTile((int) Math.ceil(area.getMaxY() / factor) + 1));
+    if (x1 <= x0 || y1 <= y0 || (level == 0 && x1 - x0 == width && y1 - y0 == height)) {
+      region = null;
+      return null;
+    }
+
+    Rectangle bounds = new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    Region r = region;
+    if (r == null || r.level() != level || !r.bounds().equals(bounds)) {
+      r = new Region(level, bounds, getRegion(pyramid, level, bounds));
+      region = r;
+    }
+
+    // A pixel of the level is centered on the block of pixels it averages in the full image
+    double shift = (factor - 1) / 2.0;
+    double ox = x0 * (double) factor + shift;
+    double oy = y0 * (double) factor + shift;
+    List<Double> m =
+        List.of(
+            matrix.get(0) * factor,
+            matrix.get(1) * factor,
+            matrix.get(0) * ox + matrix.get(1) * oy + matrix.get(2),
+            matrix.get(3) * factor,
+            matrix.get(4) * factor,
+            matrix.get(3) * ox + matrix.get(4) * oy + matrix.get(5));
+    return new ViewportImage(r.image(), m);
+  }
+
+  private static int ceilTile(int value) {
+    return (value + TILE_SIZE - 1) / TILE_SIZE * TILE_SIZE;
+  }
+
+  private PlanarImage getRegion(ImagePyramid pyramid, int level, Rectangle bounds) {
+    if (level > 0 && pyramid != null) {
+      // Read only the tiles of the region from the file
+      try {
+        releaseLevel();
+        return pyramid.getRegion(level, bounds);
+      } catch (IOException e) {
+        LOGGER.warn("Cannot read the tiles of the level {}", level, e);
+      }
+    }
+    PlanarImage levelImage = getLevel(level);
+    return ImageCV.toImageCV(
+        levelImage.toMat().submat(new Rect(bounds.x, bounds.y, bounds.width, bounds.height)));
+  }
+
+  private PlanarImage getLevel(int level) {
+    if (level == 0) {
+      return source;
+    }
+    if (levelImage != null && levelIndex == level) {
+      return levelImage;
+    }
+    // Each level is reduced from the previous one, starting from the kept level when it is lower
+    boolean fromKept = levelImage != null && levelIndex < level;
+    PlanarImage previous = fromKept ? levelImage : source;
+    for (int i = fromKept ? levelIndex + 1 : 1; i <= level; i++) {
+      Dimension dim =
+          new Dimension(
+              ImagePyramid.getLevelSize(previous.width(), 1),
+              ImagePyramid.getLevelSize(previous.height(), 1));
+      PlanarImage next = ImageProcessor.scale(previous.toMat(), dim, Imgproc.INTER_AREA);
+      if (previous != source && previous != levelImage) {
+        previous.release();
+      }
+      previous = next;
+    }
+    releaseLevel();
+    levelImage = previous;
+    levelIndex = level;
+    return levelImage;
+  }
+
+  private void releaseLevel() {
+    // The region of the level is a submatrix holding its own reference to the data
+    if (levelImage != null) {
+      levelImage.release();
+      levelImage = null;
+    }
+  }
+
+  void clear() {
+    source = null;
+    region = null;
+    releaseLevel();
+  }
+}
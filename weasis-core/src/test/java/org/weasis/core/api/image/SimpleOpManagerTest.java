@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.image;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.weasis.core.api.image.ImageOpNode.Param;
+import org.weasis.opencv.data.PlanarImage;
+
+class SimpleOpManagerTest {
+
+  static class CountOp extends AbstractOp {
+    int count;
+
+    CountOp(String name) {
+      setName(name);
+    }
+
+    @Override
+    public CountOp copy() {
+      return new CountOp(getName());
+    }
+
+    @Override
+    public void process() {
+      count++;
+      params.put(Param.OUTPUT_IMG, mockImage());
+    }
+  }
+
+  private static PlanarImage mockImage() {
+    PlanarImage img = Mockito.mock(PlanarImage.class);
+    Mockito.when(img.width()).thenReturn(512);
+    return img;
+  }
+
+  @Test
+  void test_process_from_first_modified_node() {
+    SimpleOpManager manager = new SimpleOpManager();
+    CountOp op1 = new CountOp("op1"); // NON-NLS
+    CountOp op2 = new CountOp("op2"); // NON-NLS
+    CountOp op3 = new CountOp("op3"); // NON-NLS
+    manager.addImageOperationAction(op1);
+    manager.addImageOperationAction(op2);
+    manager.addImageOperationAction(op3);
+
+    manager.setFirstNode(mockImage());
+    PlanarImage output = manager.process();
+    assertNotNull(output);
+    assertEquals(1, op3.count);
+    assertFalse(manager.needProcessing());
+
+    // Nothing has changed
+    assertSame(output, manager.process());
+    assertEquals(1, op1.count);
+    assertEquals(1, op3.count);
+
+    // The same value does not change the version
+    op2.setParam("value", 1.0); // NON-NLS
+    manager.process();
+    op2.setParam("value", 1.0); // NON-NLS
+    assertFalse(manager.needProcessing());
+    assertEquals(1, op1.count);
+    assertEquals(2, op2.count);
+    assertEquals(2, op3.count);
+
+    op3.setEnabled(false);
+    assertSame(op2.getParam(Param.OUTPUT_IMG), manager.process());
+    assertEquals(2, op2.count);
+    assertEquals(2, op3.count);
+
+    manager.setFirstNode(mockImage());
+    manager.process();
+    assertEquals(2, op1.count);
+    assertEquals(3, op2.count);
+
+    manager.clearNodeIOCache();
+    assertTrue(manager.needProcessing());
+  }
+
+  @Test
+  void test_restart_after_removing_node() {
+    SimpleOpManager manager = new SimpleOpManager();
+    CountOp op1 = new CountOp("op1"); // NON-NLS
+    CountOp op2 = new CountOp("op2"); // NON-NLS
+    CountOp op3 = new CountOp("op3"); // NON-NLS
+    manager.addImageOperationAction(op1);
+    manager.addImageOperationAction(op2);
+    manager.addImageOperationAction(op3);
+    manager.setFirstNode(mockImage());
+    manager.process();
+
+    manager.removeImageOperationAction(op2);
+    manager.process();
+    assertEquals(1, op1.count);
+    assertEquals(2, op3.count);
+    assertSame(op1.getParam(Param.OUTPUT_IMG), op3.getParam(Param.INPUT_IMG));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
+
+class DecodeSchedulerTest {
+
+  @Test
+  void test_cancel_shared_request() throws Exception {
+    DecodeScheduler scheduler = new DecodeScheduler(1, "Test Decoder"); // NON-NLS
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch unblock = new CountDownLatch(1);
+    // Keep the only thread busy, so the next requests remain pending
+    Future<Boolean> busy =
+        scheduler.submit(
+            "busy", // NON-NLS
+            Priority.DISPLAY,
+            () -> {
+              started.countDown();
+              return unblock.await(10, TimeUnit.SECONDS);
+            });
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+
+    Future<String> first = scheduler.submit("key", Priority.NEIGHBOR, () -> "a"); // NON-NLS
+    Future<String> second = scheduler.submit("key", Priority.PRELOAD, () -> "b"); // NON-NLS
+    assertSame(first, second);
+
+    // The request of the preloader remains
+    assertTrue(scheduler.cancel("key", Priority.NEIGHBOR)); // NON-NLS
+    assertFalse(first.isCancelled());
+    assertTrue(scheduler.isPending("key")); // NON-NLS
+
+    assertTrue(scheduler.cancel("key", Priority.NEIGHBOR)); // NON-NLS
+    assertTrue(first.isCancelled());
+
+    // A new request creates a new task
+    Future<String> third = scheduler.submit("key", Priority.NEIGHBOR, () -> "c"); // NON-NLS
+    assertNotSame(first, third);
+    unblock.countDown();
+    assertTrue(busy.get(10, TimeUnit.SECONDS));
+    assertEquals("c", third.get(10, TimeUnit.SECONDS)); // NON-NLS
+  }
+
+  @Test
+  void test_completion_listener() throws Exception {
+    DecodeScheduler scheduler = new DecodeScheduler(1, "Test Decoder"); // NON-NLS
+    CountDownLatch completed = new CountDownLatch(1);
+    Future<String> future =
+        scheduler.submit("key", Priority.PRELOAD, () -> "a", completed::countDown); // NON-NLS
+    assertTrue(completed.await(10, TimeUnit.SECONDS));
+    assertEquals("a", future.get(10, TimeUnit.SECONDS)); // NON-NLS
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch unblock = new CountDownLatch(1);
+    Future<Boolean> busy =
+        scheduler.submit(
+            "busy", // NON-NLS
+            Priority.DISPLAY,
+            () -> {
+              started.countDown();
+              return unblock.await(10, TimeUnit.SECONDS);
+            });
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+
+    // The listener is also called when the pending request is cancelled
+    CountDownLatch cancelled = new CountDownLatch(1);
+    scheduler.submit("key", Priority.PRELOAD, () -> "b", cancelled::countDown); // NON-NLS
+    assertTrue(scheduler.cancel("key", Priority.PRELOAD)); // NON-NLS
+    assertEquals(0, cancelled.getCount());
+
+    unblock.countDown();
+    assertTrue(busy.get(10, TimeUnit.SECONDS));
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.weasis.opencv.data.PlanarImage;
+
+class NativeCacheTest {
+
+  private static PlanarImage image(long size) {
+    PlanarImage img = Mockito.mock(PlanarImage.class);
+    Mockito.when(img.physicalBytes()).thenReturn(size);
+    return img;
+  }
+
+  @Test
+  void test_evict_least_recently_used_across_segments() {
+    List<Integer> removed = new ArrayList<>();
+    NativeCache<Integer, PlanarImage> cache =
+        new NativeCache<>(100) {
+          @Override
+          protected void afterEntryRemove(Integer key, PlanarImage val) {
+            removed.add(key);
+          }
+        };
+    // The keys from 0 to 9 are in different segments
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, image(9));
+    }
+    for (int i = 0; i < 5; i++) {
+      assertNotNull(cache.get(i));
+    }
+    assertEquals(90, cache.getUsedNativeMemory());
+
+    // More than 25% above the capacity: the eviction runs in the calling thread and must free 35
+    cache.put(10, image(40));
+    assertEquals(List.of(5, 6, 7, 8), removed);
+    assertEquals(94, cache.getUsedNativeMemory());
+    assertEquals(7, cache.size());
+    assertTrue(cache.containsKey(9));
+    assertTrue(cache.containsKey(10));
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PreloadSchedulerTest {
+
+  @Test
+  void test_loading_order() {
+    assertArrayEquals(
+        new int[] {3, 4, 2, 5, 1, 6, 0}, PreloadScheduler.getLoadingOrder(7, 3, 0, false));
+    // Two images ahead for one behind
+    assertArrayEquals(
+        new int[] {3, 4, 5, 2, 6, 1, 0}, PreloadScheduler.getLoadingOrder(7, 3, 1, false));
+    assertArrayEquals(
+        new int[] {3, 2, 1, 4, 0, 5, 6}, PreloadScheduler.getLoadingOrder(7, 3, -1, false));
+
+    assertArrayEquals(new int[] {3, 4, 5, 6}, PreloadScheduler.getLoadingOrder(7, 3, 1, true));
+    assertArrayEquals(new int[] {3, 2, 1, 0}, PreloadScheduler.getLoadingOrder(7, 3, -1, true));
+
+    assertEquals(0, PreloadScheduler.getLoadingOrder(7, 7, 1, false).length);
+    assertEquals(0, PreloadScheduler.getLoadingOrder(0, 0, 1, false).length);
+  }
+}
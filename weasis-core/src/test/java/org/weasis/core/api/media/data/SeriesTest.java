@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class SeriesTest {
+
+  private final Map<MediaElement, Integer> ranks = new IdentityHashMap<>();
+  private final Comparator<MediaElement> byRank = Comparator.comparingInt(ranks::get);
+
+  private MediaElement mockMedia(int rank) {
+    MediaElement media = Mockito.mock(MediaElement.class);
+    ranks.put(media, rank);
+    return media;
+  }
+
+  private static Series<MediaElement> buildSeries() {
+    return buildSeries(null);
+  }
+
+  /**
+   * @param identifierTag the tag indexing the media or null
+   */
+  private static Series<MediaElement> buildSeries(TagW identifierTag) {
+    return new Series<>(TagW.SubseriesInstanceUID, "1.2.3", new TagView(TagW.FileName)) {
+      @Override
+      protected TagW getMediaIdentifierTag() {
+        return identifierTag;
+      }
+
+      @Override
+      public void addMedia(MediaElement media) {
+        add(media);
+      }
+
+      @Override
+      public MediaElement getFirstSpecialElement() {
+        return null;
+      }
+
+      @Override
+      public String getMimeType() {
+        return "test/series"; // NON-NLS
+      }
+    };
+  }
+
+  @Test
+  void test_sorted_view_updated_on_add() {
+    Series<MediaElement> series = buildSeries();
+    int[] order = {5, 1, 4, 2, 3};
+    series.addMedia(mockMedia(order[0]));
+    // Build the sorted view, then add the other media
+    assertEquals(1, series.getSortedMedias(byRank).size());
+
+    List<MediaElement> added = new ArrayList<>();
+    for (int i = 1; i < order.length; i++) {
+      MediaElement media = mockMedia(order[i]);
+      added.add(media);
+      series.addMedia(media);
+    }
+    MediaElement duplicate = mockMedia(4);
+    series.add(0, duplicate);
+
+    List<MediaElement> sorted = series.getSortedMedias(byRank);
+    assertEquals(6, sorted.size());
+    for (int i = 1; i < sorted.size(); i++) {
+      assertTrue(byRank.compare(sorted.get(i - 1), sorted.get(i)) <= 0);
+    }
+    // The equal elements are in the insertion order
+    assertSame(added.get(1), sorted.get(3));
+    assertSame(duplicate, sorted.get(4));
+
+    for (int i = 0; i < sorted.size(); i++) {
+      assertEquals(i, series.getImageIndex(sorted.get(i), null, byRank));
+    }
+    assertEquals(-1, series.getImageIndex(mockMedia(3), null, byRank));
+  }
+
+  @Test
+  void test_returned_sorted_view_not_modified() {
+    Series<MediaElement> series = buildSeries();
+    series.addMedia(mockMedia(2));
+    List<MediaElement> previous = series.getSortedMedias(byRank);
+    assertEquals(1, previous.size());
+
+    MediaElement media = mockMedia(1);
+    series.addMedia(media);
+    assertEquals(1, previous.size());
+    List<MediaElement> sorted = series.getSortedMedias(byRank);
+    assertEquals(2, sorted.size());
+    assertSame(media, sorted.getFirst());
+  }
+
+  @Test
+  void test_sorted_view_rebuilt_on_large_add() {
+    Series<MediaElement> series = buildSeries();
+    series.addMedia(mockMedia(10));
+    assertEquals(1, series.getSortedMedias(byRank).size());
+
+    List<MediaElement> list = new ArrayList<>();
+    for (int i = 9; i >= 0; i--) {
+      list.add(mockMedia(i));
+    }
+    series.addAll(list);
+
+    List<MediaElement> sorted = series.getSortedMedias(byRank);
+    assertEquals(11, sorted.size());
+    for (int i = 0; i < sorted.size(); i++) {
+      assertEquals(i, ranks.get(sorted.get(i)));
+      assertEquals(i, series.getImageIndex(sorted.get(i), null, byRank));
+    }
+  }
+
+  @Test
+  void test_media_identifier_index() {
+    Series<MediaElement> series = buildSeries(TagW.FileName);
+    MediaElement media = mockMedia(1);
+    Mockito.when(media.getTagValue(TagW.FileName)).thenReturn("image1");
+    series.addMedia(media);
+
+    assertTrue(series.hasMediaContains(TagW.FileName, "image1"));
+    assertFalse(series.hasMediaContains(TagW.FileName, "image2"));
+    assertFalse(series.hasMediaContains(TagW.FileName, null));
+
+    series.dispose();
+    assertFalse(series.hasMediaContains(TagW.FileName, "image1"));
+  }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.BulkData;
+import org.dcm4che3.data.Fragments;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.img.DicomMetaData;
+import org.dcm4che3.img.stream.BytesWithImageDescriptor;
+import org.dcm4che3.img.stream.ImageDescriptor;
+import org.dcm4che3.img.util.DicomUtils;
+import org.opencv.core.CvType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.util.FileUtil;
+
+/**
+ * Index of the pixel data of a DICOM file. It contains the position and the length of the data of
+ * each frame (the fragments for the encapsulated transfer syntaxes), so a frame can be read
+ * directly from a shared {@link FileChannel} without parsing again the DICOM header.
+ */
+public class DicomFrameIndex implements BytesWithImageDescriptor, AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DicomFrameIndex.class);
+
+  private static final int[] PALETTE_TAGS = {
+    Tag.RedPaletteColorLookupTableDescriptor,
+    Tag.GreenPaletteColorLookupTableDescriptor,
+    Tag.BluePaletteColorLookupTableDescriptor,
+    Tag.RedPaletteColorLookupTableData,
+    Tag.GreenPaletteColorLookupTableData,
+    Tag.BluePaletteColorLookupTableData,
+    Tag.SegmentedRedPaletteColorLookupTableData,
+    Tag.SegmentedGreenPaletteColorLookupTableData,
+    Tag.SegmentedBluePaletteColorLookupTableData
+  };
+
+  private final Path path;
+  private final String transferSyntax;
+  private final ImageDescriptor imageDescriptor;
+  private final VR pixelDataVR;
+  private final Attributes palette;
+  private final long[][] positions;
+  private final long[][] lengths;
+  private FileChannel channel;
+  // Number of reads using the channel and closing requested while reading
+  private int readers;
+  private boolean closePending;
+
+  private DicomFrameIndex(
+      Path path,
+      DicomMetaData metaData,
+      VR pixelDataVR,
+      long[][] positions,
+      long[][] lengths) {
+    this.path = path;
+    this.transferSyntax = metaData.getTransferSyntaxUID();
+    this.imageDescriptor = metaData.getImageDescriptor();
+    this.pixelDataVR = pixelDataVR;
+    this.positions = positions;
+    this.lengths = lengths;
+    Attributes dcm = metaData.getDicomObject();
+    this.palette = new Attributes(PALETTE_TAGS.length);
+    for (int tag : PALETTE_TAGS) {
+      if (dcm.containsValue(tag)) {
+        palette.setValue(tag, dcm.getVR(tag), dcm.getValue(tag));
+      }
+    }
+  }
+
+  /**
+   * Builds the index from the metadata read with the pixel data as bulk data references.
+   *
+   * @param path the DICOM file
+   * @param metaData the metadata of the DICOM file
+   * @param numberOfFrames the number of frames
+   * @return the index or null when the pixel data cannot be indexed (the frames must be read with
+   *     the DICOM stream)
+   */
+  public static DicomFrameIndex build(Path path, DicomMetaData metaData, int numberOfFrames) {
+    if (path == null || metaData == null || numberOfFrames <= 0) {
+      return null;
+    }
+    Attributes dcm = metaData.getDicomObject();
+    VR.Holder holder = new VR.Holder();
+    Object pixelData = dcm.getValue(Tag.PixelData, holder);
+    try {
+      if (pixelData instanceof BulkData bulkData) {
+        return buildNative(path, metaData, holder.vr, bulkData, numberOfFrames);
+      } else if (pixelData instanceof Fragments fragments) {
+        return buildEncapsulated(path, metaData, holder.vr, fragments, numberOfFrames);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Cannot build the frame index of {}", path, e);
+    }
+    return null;
+  }
+
+  private static DicomFrameIndex buildNative(
+      Path path, DicomMetaData metaData, VR vr, BulkData bulkData, int numberOfFrames) {
+    if (bulkData.bigEndian() || !DicomUtils.isNative(metaData.getTransferSyntaxUID())) {
+      return null;
+    }
+    ImageDescriptor desc = metaData.getImageDescriptor();
+    long frameBits =
+        (long) desc.getRows() * desc.getColumns() * desc.getSamples() * desc.getBitsAllocated();
+    if (numberOfFrames > 1 && frameBits % 8 != 0) {
+      // Frames are not aligned on bytes
+      return null;
+    }
+    long frameLength = (frameBits + 7) / 8;
+    if (frameLength <= 0 || frameLength * numberOfFrames > bulkData.longLength()) {
+      return null;
+    }
+    long[][] positions = new long[numberOfFrames][];
+    long[][] lengths = new long[numberOfFrames][];
+    for (int i = 0; i < numberOfFrames; i++) {
+      positions[i] = new long[] {bulkData.offset() + i * frameLength};
+      lengths[i] = new long[] {frameLength};
+    }
+    return new DicomFrameIndex(path, metaData, vr, positions, lengths);
+  }
+
+  private static DicomFrameIndex buildEncapsulated(
+      Path path, DicomMetaData metaData, VR vr, Fragments fragments, int numberOfFrames)
+      throws IOException {
+    int nbFragments = fragments.size() - 1;
+    if (nbFragments < numberOfFrames) {
+      return null;
+    }
+    long[] fragPositions = new long[nbFragments];
+    long[] fragLengths = new long[nbFragments];
+    for (int i = 0; i < nbFragments; i++) {
+      if (fragments.get(i + 1) instanceof BulkData bulkData) {
+        fragPositions[i] = bulkData.offset();
+        fragLengths[i] = bulkData.longLength();
+      } else {
+        return null;
+      }
+    }
+
+    int[] firstFragments = new int[numberOfFrames + 1];
+    firstFragments[numberOfFrames] = nbFragments;
+    if (numberOfFrames == 1 || nbFragments == numberOfFrames) {
+      for (int i = 0; i < numberOfFrames; i++) {
+        firstFragments[i] = numberOfFrames == 1 ? 0 : i;
+      }
+    } else {
+      long[] offsetTable = readBasicOffsetTable(path, fragments.getFirst(), numberOfFrames);
+      if (offsetTable == null) {
+        return null;
+      }
+      // The offsets are relative to the first byte of the item tag of the first fragment
+      long firstItem = fragPositions[0] - 8;
+      int k = 0;
+      for (int i = 0; i < nbFragments && k < numberOfFrames; i++) {
+        if (fragPositions[i] - 8 - firstItem == offsetTable[k]) {
+          firstFragments[k++] = i;
+        }
+      }
+      if (k != numberOfFrames) {
+        return null;
+      }
+    }
+
+    long[][] positions = new long[numberOfFrames][];
+    long[][] lengths = new long[numberOfFrames][];
+    for (int i = 0; i < numberOfFrames; i++) {
+      int start = firstFragments[i];
+      int end = firstFragments[i + 1];
+      positions[i] = Arrays.copyOfRange(fragPositions, start, end);
+      lengths[i] = Arrays.copyOfRange(fragLengths, start, end);
+    }
+    return new DicomFrameIndex(path, metaData, vr, positions, lengths);
+  }
+
+  private static long[] readBasicOffsetTable(Path path, Object bot, int numberOfFrames)
+      throws IOException {
+    ByteBuffer buf;
+    if (bot instanceof byte[] bytes && bytes.length == numberOfFrames * 4) {
+      buf = ByteBuffer.wrap(bytes);
+    } else if (bot instanceof BulkData bulkData && bulkData.longLength() == numberOfFrames * 4L) {
+      buf = ByteBuffer.allocate(numberOfFrames * 4);
+      try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+        readFully(ch, buf, bulkData.offset());
+      }
+      buf.flip();
+    } else {
+      return null;
+    }
+    buf.order(ByteOrder.LITTLE_ENDIAN);
+    long[] offsets = new long[numberOfFrames];
+    for (int i = 0; i < numberOfFrames; i++) {
+      offsets[i] = Integer.toUnsignedLong(buf.getInt());
+    }
+    return offsets;
+  }
+
+  private static void readFully(FileChannel ch, ByteBuffer buf, long position)
+      throws IOException {
+    long pos = position;
+    while (buf.hasRemaining()) {
+      int n = ch.read(buf, pos);
+      if (n < 0) {
+        throw new EOFException();
+      }
+      pos += n;
+    }
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  public int getNumberOfFrames() {
+    return positions.length;
+  }
+
+  public long getFrameLength(int frame) {
+    long length = 0;
+    for (long l : lengths[frame]) {
+      length += l;
+    }
+    return length;
+  }
+
+  /**
+   * Returns the OpenCV type when a frame can be used directly as the backing store of an image:
+   * uncompressed little endian monochrome data of 8 or 16 bits, without embedded overlay and
+   * without unused high bits in signed data.
+   *
+   * @return the OpenCV type or -1 when the frame data must be decoded
+   */
+  public int getMappableType() {
+    ImageDescriptor desc = imageDescriptor;
+    if (!DicomUtils.isNative(transferSyntax)
+        || desc.getSamples() != 1
+        || !desc.getPhotometricInterpretation().isMonochrome()
+        || !desc.getEmbeddedOverlay().isEmpty()) {
+      return -1;
+    }
+    int bitsAllocated = desc.getBitsAllocated();
+    if (desc.isSigned() && desc.getBitsStored() != bitsAllocated) {
+      // Requires the sign extension of the stored bits
+      return -1;
+    }
+    if (bitsAllocated == 8) {
+      return desc.isSigned() ? CvType.CV_8SC1 : CvType.CV_8UC1;
+    } else if (bitsAllocated == 16) {
+      return desc.isSigned() ? CvType.CV_16SC1 : CvType.CV_16UC1;
+    }
+    return -1;
+  }
+
+  /**
+   * @param frame the frame index
+   * @return the file position of the frame data when it is contiguous, otherwise -1
+   */
+  public long getFramePosition(int frame) {
+    long[] pos = positions[frame];
+    return pos.length == 1 ? pos[0] : -1;
+  }
+
+  private synchronized FileChannel acquireChannel() throws IOException {
+    if (channel == null || !channel.isOpen()) {
+      channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+    closePending = false;
+    readers++;
+    return channel;
+  }
+
+  private synchronized void releaseChannel() {
+    readers--;
+    if (readers == 0 && closePending) {
+      closeChannel();
+    }
+  }
+
+  private void closeChannel() {
+    FileUtil.safeClose(channel);
+    channel = null;
+    closePending = false;
+  }
+
+  @Override
+  public ByteBuffer getBytes(int frame) throws IOException {
+    if (frame < 0 || frame >= positions.length) {
+      throw new IOException("Frame out of range: " + frame);
+    }
+    long length = getFrameLength(frame);
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("Frame too large: " + length);
+    }
+    ByteBuffer buf = ByteBuffer.allocate((int) length);
+    // Positional reads do not change the position of the channel, so it can be shared by threads
+    FileChannel ch = acquireChannel();
+    try {
+      long[] pos = positions[frame];
+      long[] len = lengths[frame];
+      for (int i = 0; i < pos.length; i++) {
+        buf.limit(buf.position() + (int) len[i]);
+        readFully(ch, buf, pos[i]);
+      }
+    } finally {
+      releaseChannel();
+    }
+    buf.flip();
+    return buf;
+  }
+
+  @Override
+  public String getTransferSyntax() {
+    return transferSyntax;
+  }
+
+  @Override
+  public boolean bigEndian() {
+    return false;
+  }
+
+  @Override
+  public VR getPixelDataVR() {
+    return pixelDataVR;
+  }
+
+  @Override
+  public Attributes getPaletteColorLookupTable() {
+    return palette;
+  }
+
+  @Override
+  public ImageDescriptor getImageDescriptor() {
+    return imageDescriptor;
+  }
+
+  /**
+   * Closes the file channel. The frames are read by several threads and the close is requested when
+   * a frame is removed from the cache, so the channel is closed only when the last read using it is
+   * completed. A new read opens it again.
+   */
+  @Override
+  public synchronized void close() {
+    if (readers > 0) {
+      closePending = true;
+    } else {
+      closeChannel();
+    }
+  }
+}
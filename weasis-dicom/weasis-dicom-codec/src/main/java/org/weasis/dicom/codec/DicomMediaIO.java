@@ -49,6 +49,8 @@
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
 import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.api.image.cv.ImagePyramid;
+import org.weasis.core.api.image.cv.MappedImageCV;
 import org.weasis.core.api.media.data.Codec;
 import org.weasis.core.api.media.data.FileCache;
 import org.weasis.core.api.media.data.MediaElement;
@@ -294,6 +296,8 @@ public void removeElement(Reference<? extends DicomMetaData> soft) {
   // the dcmMetadata is
   // created within the application and is given to the ImageReader constructor
   private DicomMetaData dcmMetadata = null;
+  // Index of the frames built when reading the header, it does not keep a reference to the header
+  private volatile DicomFrameIndex frameIndex = null;
 
   private URI uri;
   private int numberOfFrame;
@@ -346,6 +350,8 @@ private static void readTagsInModalityView(TagView[] views) {
   public synchronized void replaceURI(URI uri) {
     if (!Objects.equals(this.uri, Objects.requireNonNull(uri))) {
       this.uri = uri;
+      closeFrameIndex();
+      frameIndex = null;
     }
   }
 
@@ -644,8 +650,13 @@ public boolean buildFile(File output) {
 
   @Override
   public PlanarImage getImageFragment(MediaElement media) throws Exception {
-    if (Objects.requireNonNull(media).getKey() instanceof Integer) {
-      return getImageFragment(media, (Integer) media.getKey(), true);
+    if (Objects.requireNonNull(media).getKey() instanceof Integer frame) {
+      PlanarImage img = getImageFragment(media, frame, true);
+      ImagePyramid.attach(
+          img,
+          media.getMediaURI() + "#" + frame,
+          media.getFileCache().getOriginalFile().orElse(null));
+      return img;
     }
     return null;
   }
@@ -660,9 +671,21 @@ public PlanarImage getImageFragment(MediaElement media, int frame, boolean noEmb
             "Start reading dicom image frame: {} sopUID: {}",
             frame,
             TagD.getTagValue(this, Tag.SOPInstanceUID));
+        Path path = original.get().toPath();
+        DicomFrameIndex index = getFrameIndex(path);
+        PlanarImage mappedImage = mapUncompressedFrame(index, frame);
+        if (mappedImage != null) {
+          return mappedImage;
+        }
         DicomImageReader reader = new DicomImageReader(Transcoder.dicomImageReaderSpi);
-        try (DicomFileInputStream inputStream = new DicomFileInputStream(original.get().toPath())) {
-          reader.setInput(inputStream);
+        // Read directly the frame from the index, otherwise parse the DICOM stream
+        try (DicomFileInputStream inputStream =
+            index == null ? new DicomFileInputStream(path) : null) {
+          if (index == null) {
+            reader.setInput(inputStream);
+          } else {
+            reader.setInput(index);
+          }
           ImageDescriptor desc = reader.getImageDescriptor();
           PlanarImage img = reader.getPlanarImage(frame, null);
           if (img.width() != desc.getColumns() || img.height() != desc.getRows()) {
@@ -682,6 +705,45 @@ public PlanarImage getImageFragment(MediaElement media, int frame, boolean noEmb
     return null;
   }
 
+  private DicomFrameIndex getFrameIndex(Path path) {
+    try {
+      // Parse the file when the header is no more in the cache
+      readMetaData();
+    } catch (IOException e) {
+      LOGGER.error("Cannot read DICOM header", e);
+      return null;
+    }
+    DicomFrameIndex index = frameIndex;
+    if (index != null && index.getPath().equals(path) && index.getNumberOfFrames() > 0) {
+      return index;
+    }
+    return null;
+  }
+
+  private static PlanarImage mapUncompressedFrame(DicomFrameIndex index, int frame) {
+    if (index != null && MappedImageCV.isMappingEnabled()) {
+      int type = index.getMappableType();
+      long position = index.getFramePosition(frame);
+      if (type >= 0 && position >= 0) {
+        ImageDescriptor desc = index.getImageDescriptor();
+        try {
+          return MappedImageCV.read(
+              index.getPath(), position, desc.getRows(), desc.getColumns(), type);
+        } catch (IOException e) {
+          LOGGER.debug("Cannot map the frame {} of {}", frame, index.getPath(), e);
+        }
+      }
+    }
+    return null;
+  }
+
+  private void closeFrameIndex() {
+    DicomFrameIndex index = frameIndex;
+    if (index != null) {
+      index.close();
+    }
+  }
+
   private static Mat getMatBuffer(ExtendSegmentedInputImageStream extParams) throws IOException {
     try (RandomAccessFile raf = new RandomAccessFile(extParams.getFile(), "r")) {
 
@@ -857,6 +919,8 @@ public Map<TagW, Object> getMediaFragmentTags(Object key) {
   @Override
   public void close() {
     HEADER_CACHE.remove(this);
+    // Keep the index, only the file channel is closed
+    closeFrameIndex();
   }
 
   @Override
@@ -954,6 +1018,9 @@ private synchronized DicomMetaData readMetaData() throws IOException {
       if (numberOfFrame <= 0 && hasPixel) {
         this.numberOfFrame = 1;
       }
+      if (hasPixel && (frameIndex == null || !frameIndex.getPath().equals(path))) {
+        frameIndex = DicomFrameIndex.build(path, dicomMetaData, numberOfFrame);
+      }
       HEADER_CACHE.put(this, dicomMetaData);
       return dicomMetaData;
     } finally {
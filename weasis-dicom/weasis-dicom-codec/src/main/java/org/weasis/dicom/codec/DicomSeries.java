@@ -10,9 +10,13 @@
 package org.weasis.dicom.codec;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.dcm4che3.data.Tag;
 import org.slf4j.Logger;
@@ -21,14 +25,13 @@
 import org.weasis.core.api.explorer.model.DataExplorerModel;
 import org.weasis.core.api.gui.util.Filter;
 import org.weasis.core.api.gui.util.GuiUtils;
-import org.weasis.core.api.image.cv.CvUtil;
+import org.weasis.core.api.media.data.PreloadScheduler;
 import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.SeriesEvent;
 import org.weasis.core.api.media.data.TagView;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.ui.editor.image.DefaultView2d;
 import org.weasis.core.util.FileUtil;
-import org.weasis.core.util.MathUtil;
 import org.weasis.core.util.StringUtil;
 import org.weasis.dicom.codec.TagD.Level;
 import org.weasis.dicom.codec.utils.SeriesInstanceList;
@@ -39,7 +42,10 @@ public class DicomSeries extends Series<DicomImageElement> {
   static final TagView defaultTagView =
       new TagView(TagD.getTagFromIDs(Tag.SeriesDescription, Tag.SeriesNumber, Tag.SeriesTime));
 
-  private static PreloadingTask preloadingTask;
+  private static final int MAX_SLICE_INDEXES = 8;
+
+  // Sorted slice locations of the views (filter and sort) used by the synchronization
+  private final Map<SliceKey, SliceIndex> sliceIndexes = new HashMap<>();
 
   public DicomSeries(String subseriesInstanceUID) {
     this(subseriesInstanceUID, null, defaultTagView);
@@ -180,38 +186,66 @@ public synchronized void dispose() {
     super.dispose();
   }
 
+  @Override
+  public void add(DicomImageElement media) {
+    super.add(media);
+    resetSliceIndexes();
+  }
+
+  @Override
+  public void add(int index, DicomImageElement media) {
+    super.add(index, media);
+    resetSliceIndexes();
+  }
+
+  @Override
+  public void addAll(Collection<? extends DicomImageElement> c) {
+    super.addAll(c);
+    resetSliceIndexes();
+  }
+
+  @Override
+  public void addAll(int index, Collection<? extends DicomImageElement> c) {
+    super.addAll(index, c);
+    resetSliceIndexes();
+  }
+
+  @Override
+  protected synchronized void resetSortedMediasMap() {
+    super.resetSortedMediasMap();
+    resetSliceIndexes();
+  }
+
+  private synchronized void resetSliceIndexes() {
+    sliceIndexes.clear();
+  }
+
+  private synchronized SliceIndex getSliceIndex(
+      Filter<DicomImageElement> filter, Comparator<DicomImageElement> sort) {
+    SliceKey key = new SliceKey(filter, sort);
+    SliceIndex index = sliceIndexes.get(key);
+    if (index == null) {
+      index = SliceIndex.build(getMedias(filter, sort));
+      if (sliceIndexes.size() >= MAX_SLICE_INDEXES) {
+        sliceIndexes.clear();
+      }
+      sliceIndexes.put(key, index);
+    }
+    return index;
+  }
+
   @Override
   public DicomImageElement getNearestImage(
       double location,
       int offset,
       Filter<DicomImageElement> filter,
       Comparator<DicomImageElement> sort) {
-    Iterable<DicomImageElement> mediaList = getMedias(filter, sort);
-    DicomImageElement nearest = null;
-    int index = 0;
-    int bestIndex = -1;
-    synchronized (this) {
-      double bestDiff = Double.MAX_VALUE;
-      for (DicomImageElement dcm : mediaList) {
-        double[] val = (double[]) dcm.getTagValue(TagW.SlicePosition);
-        if (val != null) {
-          double diff = Math.abs(location - (val[0] + val[1] + val[2]));
-          if (diff < bestDiff) {
-            bestDiff = diff;
-            nearest = dcm;
-            bestIndex = index;
-            if (MathUtil.isEqualToZero(diff)) {
-              break;
-            }
-          }
-        }
-        index++;
-      }
-    }
+    SliceIndex sliceIndex = getSliceIndex(filter, sort);
+    int k = sliceIndex.nearest(location);
     if (offset > 0) {
-      return getMedia(bestIndex + offset, filter, sort);
+      return getMedia((k < 0 ? -1 : sliceIndex.indexes[k]) + offset, filter, sort);
     }
-    return nearest;
+    return k < 0 ? null : sliceIndex.elements[k];
   }
 
   @Override
@@ -220,38 +254,115 @@ public int getNearestImageIndex(
       int offset,
       Filter<DicomImageElement> filter,
       Comparator<DicomImageElement> sort) {
-    Iterable<DicomImageElement> mediaList = getMedias(filter, sort);
-    int index = 0;
-    int bestIndex = -1;
-    synchronized (this) {
-      double bestDiff = Double.MAX_VALUE;
+    SliceIndex sliceIndex = getSliceIndex(filter, sort);
+    int k = sliceIndex.nearest(location);
+    int bestIndex = k < 0 ? -1 : sliceIndex.indexes[k];
+    return (offset > 0) ? (bestIndex + offset) : bestIndex;
+  }
+
+  private record SliceKey(Filter<DicomImageElement> filter, Comparator<DicomImageElement> sort) {}
+
+  /**
+   * Slice locations (sum of the components of the slice position) of a view of the series, sorted
+   * in ascending order with the index of the image in the view. For the equal locations, the
+   * lowest index comes first.
+   */
+  private record SliceIndex(double[] locations, int[] indexes, DicomImageElement[] elements) {
+
+    static SliceIndex build(Iterable<DicomImageElement> mediaList) {
+      List<DicomImageElement> list = new ArrayList<>();
+      List<Integer> viewIndexes = new ArrayList<>();
+      int index = 0;
       for (DicomImageElement dcm : mediaList) {
-        double[] val = (double[]) dcm.getTagValue(TagW.SlicePosition);
-        if (val != null) {
-          double diff = Math.abs(location - (val[0] + val[1] + val[2]));
-          if (diff < bestDiff) {
-            bestDiff = diff;
-            bestIndex = index;
-            if (MathUtil.isEqualToZero(diff)) {
-              break;
-            }
-          }
+        if (dcm.getTagValue(TagW.SlicePosition) instanceof double[] val) {
+          list.add(dcm);
+          viewIndexes.add(index);
         }
         index++;
       }
+      int n = list.size();
+      double[] values = new double[n];
+      for (int i = 0; i < n; i++) {
+        double[] val = (double[]) list.get(i).getTagValue(TagW.SlicePosition);
+        values[i] = val[0] + val[1] + val[2];
+      }
+      Integer[] order = new Integer[n];
+      for (int i = 0; i < n; i++) {
+        order[i] = i;
+      }
+      // The sort is stable, so the equal locations remain in the order of the view
+      Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+      double[] locations = new double[n];
+      int[] indexes = new int[n];
+      DicomImageElement[] elements = new DicomImageElement[n];
+      for (int i = 0; i < n; i++) {
+        int j = order[i];
+        locations[i] = values[j];
+        indexes[i] = viewIndexes.get(j);
+        elements[i] = list.get(j);
+      }
+      return new SliceIndex(locations, indexes, elements);
     }
 
-    return (offset > 0) ? (bestIndex + offset) : bestIndex;
+    private int lowerBound(double location) {
+      int low = 0;
+      int high = locations.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (Double.compare(locations[mid], location) < 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    /**
+     * @param location the location to search
+     * @return the position of the nearest image in the arrays or -1 if there is no image
+     */
+    int nearest(double location) {
+      int right = lowerBound(location);
+      // The first element of the run of equal locations has the lowest index in the view
+      int left = right > 0 ? lowerBound(locations[right - 1]) : -1;
+      if (right >= locations.length) {
+        return left;
+      }
+      if (left < 0) {
+        return right;
+      }
+      double diffLeft = Math.abs(location - locations[left]);
+      double diffRight = Math.abs(location - locations[right]);
+      if (diffLeft == diffRight) {
+        // Same rule as a scan of the view: the first image found
+        return indexes[left] < indexes[right] ? left : right;
+      }
+      return diffLeft < diffRight ? left : right;
+    }
+  }
+
+  @Override
+  protected TagW getMediaIdentifierTag() {
+    return TagD.getUID(Level.INSTANCE);
   }
 
   @Override
   public boolean hasMediaContains(TagW tag, Object val) {
     if (val != null) {
-      synchronized (this) {
-        for (DicomImageElement media : medias) {
-          Object val2 = media.getTagValue(tag);
-          if (val.equals(val2)) {
-            return true;
+      if (tag != null && tag.equals(getMediaIdentifierTag())) {
+        // Hash lookup of the SOP Instance UIDs, without locking the media list
+        if (mediaIdentifiers.contains(val)) {
+          return true;
+        }
+      } else {
+        synchronized (this) {
+          for (DicomImageElement media : medias) {
+            Object val2 = media.getTagValue(tag);
+            if (val.equals(val2)) {
+              return true;
+            }
           }
         }
       }
@@ -306,132 +417,49 @@ public boolean isSuitableFor3d() {
     return size(null) >= DefaultView2d.MINIMAL_IMAGES_FOR_3D;
   }
 
-  public static synchronized void startPreloading(
+  /**
+   * Starts the preloading of the images of the series in the image cache, without stopping the
+   * preloading of the other series.
+   *
+   * @param series the series
+   * @param imageList the images in the display order
+   * @param currentIndex the index of the displayed image
+   */
+  public static void startPreloading(
       DicomSeries series, List<DicomImageElement> imageList, int currentIndex) {
     if (series != null && imageList != null) {
-      if (preloadingTask != null) {
-        if (preloadingTask.getSeries() == series) {
-          return;
-        }
-        stopPreloading(preloadingTask.getSeries());
+      DataExplorerModel model = (DataExplorerModel) series.getTagValue(TagW.ExplorerModel);
+      if (model == null || currentIndex < 0 || currentIndex >= imageList.size()) {
+        return;
       }
-      preloadingTask = new PreloadingTask(series, imageList, currentIndex);
-      preloadingTask.start();
+      PreloadScheduler.getInstance()
+          .start(
+              series,
+              imageList,
+              currentIndex,
+              DicomSeries::evaluateImageSize,
+              img ->
+                  model.firePropertyChange(
+                      new ObservableEvent(
+                          ObservableEvent.BasicAction.ADD,
+                          model,
+                          null,
+                          new SeriesEvent(SeriesEvent.Action.PRELOADING, series, img))));
     }
   }
 
-  public static synchronized void stopPreloading(DicomSeries series) {
-    if (preloadingTask != null && preloadingTask.getSeries() == series) {
-      PreloadingTask moribund = preloadingTask;
-      preloadingTask = null;
-      moribund.setPreloading(false);
-      moribund.interrupt();
-    }
+  public static void stopPreloading(DicomSeries series) {
+    PreloadScheduler.getInstance().stop(series);
   }
 
-  static class PreloadingTask extends Thread {
-    private volatile boolean preloading = true;
-    private final int index;
-    private final List<DicomImageElement> imageList;
-    private final DicomSeries series;
-
-    public PreloadingTask(DicomSeries series, List<DicomImageElement> imageList, int currentIndex) {
-      this.series = series;
-      this.imageList = imageList;
-      this.index = currentIndex;
-    }
-
-    public synchronized boolean isPreloading() {
-      return preloading;
-    }
-
-    public DicomSeries getSeries() {
-      return series;
-    }
-
-    public List<DicomImageElement> getImageList() {
-      return imageList;
-    }
-
-    public synchronized void setPreloading(boolean preloading) {
-      this.preloading = preloading;
-    }
-
-    private static long evaluateImageSize(DicomImageElement image) {
-      Integer allocated = TagD.getTagValue(image, Tag.BitsAllocated, Integer.class);
-      Integer sample = TagD.getTagValue(image, Tag.SamplesPerPixel, Integer.class);
-      Integer rows = TagD.getTagValue(image, Tag.Rows, Integer.class);
-      Integer columns = TagD.getTagValue(image, Tag.Columns, Integer.class);
-      if (allocated != null && sample != null && rows != null && columns != null) {
-        return ((long) rows * columns * sample * allocated) / 8L;
-      }
-      return 0L;
-    }
-
-    private void loadArrays(DicomImageElement img, DataExplorerModel model) {
-      // Do not load an image if another process already loading it
-      if (preloading && !img.isLoading()) {
-        Boolean cache = (Boolean) img.getTagValue(TagW.ImageCache);
-        if (cache == null || !cache) {
-          long start = System.currentTimeMillis();
-          try {
-            img.getImage();
-          } catch (OutOfMemoryError e) {
-            LOGGER.error("Out of memory when loading image: {}", img, e);
-            CvUtil.runGarbageCollectorAndWait(50);
-            return;
-          }
-          long stop = System.currentTimeMillis();
-          LOGGER.debug("Reading time: {} ms of image: {}", stop - start, img);
-          if (model != null) {
-            model.firePropertyChange(
-                new ObservableEvent(
-                    ObservableEvent.BasicAction.ADD,
-                    model,
-                    null,
-                    new SeriesEvent(SeriesEvent.Action.PRELOADING, series, img)));
-          }
-        }
-      }
-    }
-
-    @Override
-    public void run() {
-      if (imageList != null) {
-        DataExplorerModel model = (DataExplorerModel) series.getTagValue(TagW.ExplorerModel);
-        int size = imageList.size();
-        if (model == null || index < 0 || index >= size) {
-          return;
-        }
-        long imgSize = evaluateImageSize(imageList.get(index)) * size + 5000;
-        long heapSize = Runtime.getRuntime().totalMemory();
-        long heapFreeSize = Runtime.getRuntime().freeMemory();
-        if (imgSize > heapSize / 3) {
-          if (imgSize > heapFreeSize) {
-            CvUtil.runGarbageCollectorAndWait(50);
-          }
-          double val = (double) heapFreeSize / imgSize;
-          int adjustSize = (int) (size * val) / 2;
-          int start = index - adjustSize;
-          if (start < 0) {
-            adjustSize -= start;
-            start = 0;
-          }
-          if (adjustSize > size) {
-            adjustSize = size;
-          }
-          for (int i = start; i < adjustSize; i++) {
-            loadArrays(imageList.get(i), model);
-          }
-        } else {
-          if (imgSize > heapFreeSize) {
-            CvUtil.runGarbageCollectorAndWait(50);
-          }
-          for (DicomImageElement img : imageList) {
-            loadArrays(img, model);
-          }
-        }
-      }
+  private static long evaluateImageSize(DicomImageElement image) {
+    Integer allocated = TagD.getTagValue(image, Tag.BitsAllocated, Integer.class);
+    Integer sample = TagD.getTagValue(image, Tag.SamplesPerPixel, Integer.class);
+    Integer rows = TagD.getTagValue(image, Tag.Rows, Integer.class);
+    Integer columns = TagD.getTagValue(image, Tag.Columns, Integer.class);
+    if (allocated != null && sample != null && rows != null && columns != null) {
+      return ((long) rows * columns * sample * allocated) / 8L;
     }
+    return 0L;
   }
 }
@@ -12,6 +12,8 @@
 import java.awt.Color;
 import java.util.Map;
 import java.util.Optional;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
 import org.dcm4che3.img.DicomImageReadParam;
 import org.dcm4che3.img.DicomMetaData;
 import org.dcm4che3.img.data.OverlayData;
@@ -97,4 +99,33 @@ public void process() throws Exception {
     }
     params.put(Param.OUTPUT_IMG, result);
   }
+
+  @Override
+  public boolean isRegionIndependent() {
+    Boolean overlay = (Boolean) params.get(P_SHOW);
+    if (overlay == null || !overlay) {
+      return true;
+    }
+    if (params.get(WindowAndPresetsOp.P_PR_ELEMENT) != null) {
+      return false;
+    }
+    ImageElement image = (ImageElement) params.get(P_IMAGE_ELEMENT);
+    if (image != null && image.getMediaReader() instanceof DicomMediaIO reader) {
+      DicomMetaData md = reader.getDicomMetaData();
+      return md == null
+          || (md.getImageDescriptor().getEmbeddedOverlay().isEmpty()
+              && !hasOverlayGroup(md.getDicomObject()));
+    }
+    return true;
+  }
+
+  private static boolean hasOverlayGroup(Attributes dcm) {
+    // Overlay groups from 6000 to 601E
+    for (int i = 0; i < 32; i += 2) {
+      if (dcm.containsValue(Tag.OverlayRows | (i << 16))) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
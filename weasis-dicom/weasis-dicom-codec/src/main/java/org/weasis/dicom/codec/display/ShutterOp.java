@@ -142,6 +142,13 @@ public void process() throws Exception {
     params.put(Param.OUTPUT_IMG, result);
   }
 
+  @Override
+  public boolean isRegionIndependent() {
+    boolean shutter = LangUtil.getNULLtoFalse((Boolean) params.get(P_SHOW));
+    return !shutter
+        || (params.get(P_SHAPE) == null && params.get(WindowAndPresetsOp.P_PR_ELEMENT) == null);
+  }
+
   private Color getShutterColor() {
     Color color = (Color) params.get(P_RGB_COLOR);
     if (color == null) {
@@ -110,9 +110,7 @@ public void process() throws Exception {
 
     if (imageElement != null) {
       PrDicomObject pr = (PrDicomObject) params.get(P_PR_ELEMENT);
-      if (pr != null
-          && UID.PseudoColorSoftcopyPresentationStateStorage.equals(
-              pr.getDicomObject().getString(Tag.SOPClassUID))) {
+      if (isPseudoColor(pr)) {
         source = DicomImageUtils.getRGBImageFromPaletteColorModel(source, pr.getDicomObject());
       }
       result = imageElement.getRenderedImage(source, params);
@@ -120,4 +118,17 @@ public void process() throws Exception {
 
     params.put(Param.OUTPUT_IMG, result);
   }
+
+  @Override
+  public boolean isRegionIndependent() {
+    // The palette must be applied on the original pixel values, not on an averaged reduction
+    return !isPseudoColor((PrDicomObject) params.get(P_PR_ELEMENT))
+        && super.isRegionIndependent();
+  }
+
+  private static boolean isPseudoColor(PrDicomObject pr) {
+    return pr != null
+        && UID.PseudoColorSoftcopyPresentationStateStorage.equals(
+            pr.getDicomObject().getString(Tag.SOPClassUID));
+  }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.img.DicomImageReader;
+import org.dcm4che3.img.DicomMetaData;
+import org.dcm4che3.img.Transcoder;
+import org.dcm4che3.img.stream.DicomFileInputStream;
+import org.dcm4che3.io.DicomOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DicomFrameIndexTest {
+  private static final int ROWS = 16;
+  private static final int COLUMNS = 16;
+  private static final int FRAMES = 2;
+
+  @TempDir Path folder;
+
+  private DicomFrameIndex buildIndex() throws Exception {
+    Attributes dcm = new Attributes();
+    dcm.setString(Tag.SOPClassUID, VR.UI, UID.MultiFrameGrayscaleByteSecondaryCaptureImageStorage);
+    dcm.setString(Tag.SOPInstanceUID, VR.UI, "1.2.3.4");
+    dcm.setInt(Tag.Rows, VR.US, ROWS);
+    dcm.setInt(Tag.Columns, VR.US, COLUMNS);
+    dcm.setInt(Tag.SamplesPerPixel, VR.US, 1);
+    dcm.setInt(Tag.BitsAllocated, VR.US, 8);
+    dcm.setInt(Tag.BitsStored, VR.US, 8);
+    dcm.setInt(Tag.HighBit, VR.US, 7);
+    dcm.setInt(Tag.PixelRepresentation, VR.US, 0);
+    dcm.setString(Tag.PhotometricInterpretation, VR.CS, "MONOCHROME2"); // NON-NLS
+    dcm.setInt(Tag.NumberOfFrames, VR.IS, FRAMES);
+    byte[] pixels = new byte[ROWS * COLUMNS * FRAMES];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = (byte) (i / (ROWS * COLUMNS) + 1);
+    }
+    dcm.setBytes(Tag.PixelData, VR.OB, pixels);
+
+    Path path = folder.resolve("multiframe.dcm"); // NON-NLS
+    try (DicomOutputStream out = new DicomOutputStream(path.toFile())) {
+      out.writeDataset(dcm.createFileMetaInformation(UID.ExplicitVRLittleEndian), dcm);
+    }
+
+    DicomImageReader reader = new DicomImageReader(Transcoder.dicomImageReaderSpi);
+    try (DicomFileInputStream inputStream = new DicomFileInputStream(path)) {
+      reader.setInput(inputStream);
+      DicomMetaData metaData = reader.getStreamMetadata();
+      return DicomFrameIndex.build(path, metaData, FRAMES);
+    } finally {
+      reader.dispose();
+    }
+  }
+
+  @Test
+  void test_read_after_close() throws Exception {
+    DicomFrameIndex index = buildIndex();
+    assertNotNull(index);
+    assertEquals(FRAMES, index.getNumberOfFrames());
+    assertEquals(2, index.getBytes(1).get(0));
+    index.close();
+    // The channel is opened again
+    assertEquals(1, index.getBytes(0).get(0));
+    index.close();
+  }
+
+  @Test
+  void test_read_frames_while_one_is_evicted() throws Exception {
+    DicomFrameIndex index = buildIndex();
+    assertNotNull(index);
+    AtomicBoolean running = new AtomicBoolean(true);
+    ExecutorService executor = Executors.newFixedThreadPool(FRAMES);
+    try {
+      List<Future<Integer>> reads = new ArrayList<>();
+      for (int i = 0; i < FRAMES; i++) {
+        int frame = i;
+        reads.add(
+            executor.submit(
+                () -> {
+                  int count = 0;
+                  while (running.get() || count == 0) {
+                    ByteBuffer buf = index.getBytes(frame);
+                    assertEquals(ROWS * COLUMNS, buf.remaining());
+                    assertEquals(frame + 1, buf.get(0));
+                    count++;
+                  }
+                  return count;
+                }));
+      }
+      // The cache closes the reader each time a frame is evicted
+      for (int i = 0; i < 1000; i++) {
+        index.close();
+        Thread.yield();
+      }
+      running.set(false);
+      for (Future<Integer> read : reads) {
+        assertTrue(read.get() > 0);
+      }
+    } finally {
+      executor.shutdownNow();
+      index.close();
+    }
+  }
+}
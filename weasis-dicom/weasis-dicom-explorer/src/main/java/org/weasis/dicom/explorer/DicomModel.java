@@ -29,6 +29,7 @@
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
@@ -137,6 +138,16 @@ public class DicomModel implements TreeModel, DataExplorerModel {
       Arrays.asList(TreeModelNode.ROOT, patient, study, series);
 
   private final Tree<MediaSeriesGroup> model;
+  // Indexes of the nodes by identifier, kept in sync with the tree by addHierarchyNode() and
+  // removeHierarchyNode()
+  private final Map<MediaSeriesGroup, Map<Object, MediaSeriesGroup>> childIndex =
+      new ConcurrentHashMap<>();
+  // The same UID can be under several parents (e.g. patients with different IDs), the first node
+  // added is returned like the walk of the tree
+  private final Map<Object, CopyOnWriteArrayList<MediaSeriesGroup>> studyIndex =
+      new ConcurrentHashMap<>();
+  private final Map<Object, CopyOnWriteArrayList<MediaSeriesGroup>> seriesIndex =
+      new ConcurrentHashMap<>();
   private PropertyChangeSupport propertyChange = null;
   private final SplittingRules splittingRules;
 
@@ -169,11 +180,11 @@ public Collection<MediaSeriesGroup> getChildren(MediaSeriesGroup node) {
 
   @Override
   public MediaSeriesGroup getHierarchyNode(MediaSeriesGroup parent, Object valueID) {
-    if (parent != null || valueID != null) {
-      for (MediaSeriesGroup node : getChildren(parent)) {
-        if (node.matchIdValue(valueID)) {
-          return node;
-        }
+    // The identifier of a node cannot be null
+    if (parent != null && valueID != null) {
+      Map<Object, MediaSeriesGroup> children = childIndex.get(parent);
+      if (children != null) {
+        return children.get(valueID);
       }
     }
     return null;
@@ -262,25 +273,26 @@ public void mergeStudyUID(String oldStudyUID, String studyUID) {
 
   public MediaSeriesGroup getStudyNode(String studyUID) {
     Objects.requireNonNull(studyUID);
-    for (MediaSeriesGroup pt : getChildren(MediaSeriesGroupNode.rootNode)) {
-      for (MediaSeriesGroup st : getChildren(pt)) {
-        if (st.matchIdValue(studyUID)) {
-          return st;
-        }
-      }
-    }
-    return null;
+    return getFirstNode(studyIndex, studyUID);
   }
 
+  /**
+   * @param seriesUID the identifier of the series (Subseries Instance UID, which is also the
+   *     identifier of a split series)
+   * @return the series node or null if not found
+   */
   public MediaSeriesGroup getSeriesNode(String seriesUID) {
     Objects.requireNonNull(seriesUID);
-    for (MediaSeriesGroup pt : getChildren(MediaSeriesGroupNode.rootNode)) {
-      for (MediaSeriesGroup st : getChildren(pt)) {
-        for (MediaSeriesGroup item : getChildren(st)) {
-          if (item.matchIdValue(seriesUID)) {
-            return item;
-          }
-        }
+    return getFirstNode(seriesIndex, seriesUID);
+  }
+
+  private static MediaSeriesGroup getFirstNode(
+      Map<Object, CopyOnWriteArrayList<MediaSeriesGroup>> index, Object id) {
+    List<MediaSeriesGroup> nodes = index.get(id);
+    if (nodes != null) {
+      Iterator<MediaSeriesGroup> it = nodes.iterator();
+      if (it.hasNext()) {
+        return it.next();
       }
     }
     return null;
@@ -288,17 +300,84 @@ public MediaSeriesGroup getSeriesNode(String seriesUID) {
 
   @Override
   public void addHierarchyNode(MediaSeriesGroup root, MediaSeriesGroup leaf) {
-    model.addLeaf(root, leaf);
+    synchronized (model) {
+      if (model.getTree(root) == null) {
+        // The tree attaches an unknown parent to the root node
+        addToIndexes(MediaSeriesGroupNode.rootNode, root);
+      }
+      model.addLeaf(root, leaf);
+      addToIndexes(root, leaf);
+    }
   }
 
   @Override
   public void removeHierarchyNode(MediaSeriesGroup root, MediaSeriesGroup leaf) {
-    Tree<MediaSeriesGroup> tree = model.getTree(root);
-    if (tree != null) {
-      tree.removeLeaf(leaf);
+    synchronized (model) {
+      Tree<MediaSeriesGroup> tree = model.getTree(root);
+      if (tree != null) {
+        tree.removeLeaf(leaf);
+        Map<Object, MediaSeriesGroup> children = childIndex.get(root);
+        if (children != null && children.remove(getIdentifier(leaf), leaf)) {
+          removeFromIndexes(leaf);
+        }
+      }
+    }
+  }
+
+  private static Object getIdentifier(MediaSeriesGroup node) {
+    return node.getTagValue(node.getTagID());
+  }
+
+  private void addToIndexes(MediaSeriesGroup parent, MediaSeriesGroup node) {
+    Object id = getIdentifier(node);
+    if (parent == null || id == null) {
+      return;
+    }
+    childIndex.computeIfAbsent(parent, k -> new ConcurrentHashMap<>()).put(id, node);
+    TagW tagID = node.getTagID();
+    if (tagID.equals(study.tagElement())) {
+      addToIndex(studyIndex, id, node);
+    } else if (tagID.equals(series.tagElement())) {
+      addToIndex(seriesIndex, id, node);
     }
   }
 
+  private void removeFromIndexes(MediaSeriesGroup node) {
+    // A node removed from the tree is no more reachable with its descendants
+    Map<Object, MediaSeriesGroup> children = childIndex.remove(node);
+    if (children != null) {
+      children.values().forEach(this::removeFromIndexes);
+    }
+    Object id = getIdentifier(node);
+    if (id != null) {
+      removeFromIndex(studyIndex, id, node);
+      removeFromIndex(seriesIndex, id, node);
+    }
+  }
+
+  private static void addToIndex(
+      Map<Object, CopyOnWriteArrayList<MediaSeriesGroup>> index,
+      Object id,
+      MediaSeriesGroup node) {
+    // The nodes are equal when they have the same UID, compare the instances
+    List<MediaSeriesGroup> nodes = index.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>());
+    if (nodes.stream().noneMatch(n -> n == node)) {
+      nodes.add(node);
+    }
+  }
+
+  private static void removeFromIndex(
+      Map<Object, CopyOnWriteArrayList<MediaSeriesGroup>> index,
+      Object id,
+      MediaSeriesGroup node) {
+    index.computeIfPresent(
+        id,
+        (k, nodes) -> {
+          nodes.removeIf(n -> n == node);
+          return nodes.isEmpty() ? null : nodes;
+        });
+  }
+
   @Override
   public MediaSeriesGroup getParent(MediaSeriesGroup node, TreeModelNode modelNode) {
     if (node != null && modelNode != null) {
@@ -330,7 +409,12 @@ public void dispose() {
         }
       }
     }
-    model.clear();
+    synchronized (model) {
+      model.clear();
+      childIndex.clear();
+      studyIndex.clear();
+      seriesIndex.clear();
+    }
   }
 
   @Override
@@ -104,6 +104,8 @@ public static void loadDicomZip(File file, DicomModel dicomModel, OpeningViewer
       File dir =
           FileUtil.createTempDir(
               AppProperties.buildAccessibleTempDirectory("tmp", "zip")); // NON-NLS
+      char[] password = null;
+      File dicomdir = null;
       try (ZipFile zipFile = new ZipFile(file)) {
         if (zipFile.isEncrypted()) {
           JPanel panel = new JPanel();
@@ -121,15 +123,19 @@ public static void loadDicomZip(File file, DicomModel dicomModel, OpeningViewer
                   null,
                   null);
           if (response == JOptionPane.OK_OPTION) {
-            zipFile.setPassword(pass.getPassword());
+            password = pass.getPassword();
+            zipFile.setPassword(password);
           }
         }
-        zipFile.extractAll(dir.getPath());
+        // The DICOMDIR references the files, all the entries must be extracted before loading
+        if (zipFile.getFileHeader("DICOMDIR") != null) { // NON-NLS
+          zipFile.extractAll(dir.getPath());
+          dicomdir = new File(dir, "DICOMDIR"); // NON-NLS
+        }
       } catch (IOException e) {
         LOGGER.error("unzipping", e);
       }
-      File dicomdir = new File(dir, "DICOMDIR");
-      if (dicomdir.canRead()) {
+      if (dicomdir != null && dicomdir.canRead()) {
         DicomDirLoader dirImport = new DicomDirLoader(dicomdir, dicomModel, false);
         List<LoadSeries> loadSeries = dirImport.readDicomDir();
         if (loadSeries != null && !loadSeries.isEmpty()) {
@@ -139,9 +145,9 @@ public static void loadDicomZip(File file, DicomModel dicomModel, OpeningViewer
           LOGGER.error("Cannot import DICOM from {}", file);
         }
       } else {
-        LoadLocalDicom dicom =
-            new LoadLocalDicom(new File[] {dir}, true, dicomModel, openingViewer);
-        DicomModel.LOADING_EXECUTOR.execute(dicom);
+        // Parse the entries while they are read from the archive
+        DicomModel.LOADING_EXECUTOR.execute(
+            new LoadZipDicom(file, password, dir, dicomModel, openingViewer));
       }
     }
   }
@@ -10,9 +10,23 @@
 package org.weasis.dicom.explorer;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.weasis.core.api.explorer.ObservableEvent;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
 import org.weasis.core.api.gui.util.AppProperties;
@@ -23,6 +37,7 @@
 import org.weasis.core.api.media.data.SeriesEvent;
 import org.weasis.core.api.media.data.SeriesThumbnail;
 import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.ui.model.GraphicModel;
 import org.weasis.core.ui.serialize.XmlSerializer;
 import org.weasis.core.util.FileUtil;
@@ -32,6 +47,11 @@
 import org.weasis.dicom.explorer.HangingProtocols.OpeningViewer;
 
 public class LoadLocalDicom extends LoadDicom {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadLocalDicom.class);
+
+  private static final int PARSER_THREADS =
+      Math.clamp(Runtime.getRuntime().availableProcessors(), 1, 8);
+  private static final int QUEUE_CAPACITY = 256;
 
   private final File[] files;
   private final boolean recursive;
@@ -61,55 +81,171 @@ protected Boolean doInBackground() throws Exception {
     return true;
   }
 
+  /**
+   * Imports the files and the folders in a pipeline: the folders are scanned and the DICOM headers
+   * are parsed by a pool of threads, while the DICOM model is built only by the current thread in
+   * the order of arrival of the parsed files.
+   *
+   * @param file the files and the folders to import
+   * @param firstLevel true to scan the given folders even when the import is not recursive
+   */
   protected void addSelectionAndNotify(File[] file, boolean firstLevel) {
     if (file == null || file.length < 1) {
       return;
     }
+    importInPipeline(
+        pipeline -> {
+          for (File value : file) {
+            if (value == null) {
+              continue;
+            }
+            if (value.isDirectory()) {
+              if (firstLevel || recursive) {
+                pipeline.execute(() -> scanFolder(value.toPath(), pipeline));
+              }
+            } else {
+              pipeline.addFile(value);
+            }
+          }
+        });
+  }
 
-    ArrayList<SeriesThumbnail> thumbs = new ArrayList<>();
-    ArrayList<File> folders = new ArrayList<>();
-    for (File value : file) {
-      if (isCancelled()) {
-        return;
-      }
-      if (value == null) {
-        continue;
-      }
+  /**
+   * Builds the DICOM model from the files given to the pipeline until all the tasks of the pipeline
+   * are done.
+   *
+   * @param source submits the files or the tasks producing the files to the pipeline
+   */
+  protected void importInPipeline(Consumer<Pipeline> source) {
+    Pipeline pipeline = new Pipeline();
+    try {
+      source.accept(pipeline);
 
-      if (value.isDirectory()) {
-        if (firstLevel || recursive) {
-          folders.add(value);
-        }
-      } else if (value.canRead()
-              && FileUtil.isFileExtensionMatching(value, DicomCodec.FILE_EXTENSIONS)
-          || MimeInspector.isMatchingMimeTypeFromMagicNumber(value, DicomMediaIO.DICOM_MIMETYPE)) {
-        DicomMediaIO loader = new DicomMediaIO(value);
-        Reading reading = loader.getReadingStatus();
-        if (reading == Reading.READABLE) {
-          if (value.getPath().startsWith(AppProperties.APP_TEMP_DIR.getPath())) {
-            loader.getFileCache().setOriginalTempFile(value);
+      ArrayList<SeriesThumbnail> thumbs = new ArrayList<>();
+      while (!isCancelled()) {
+        DicomMediaIO loader = pipeline.readers.poll(100, TimeUnit.MILLISECONDS);
+        if (loader == null) {
+          // The model is up to date with the files parsed so far
+          updateSeriesThumbnail(thumbs, dicomModel);
+          thumbs.clear();
+          if (pipeline.pending.get() == 0 && pipeline.readers.isEmpty()) {
+            break;
           }
+        } else {
           // Issue: must handle adding image to viewer and building thumbnail (middle image)
           SeriesThumbnail t = buildDicomStructure(loader);
           if (t != null) {
             thumbs.add(t);
           }
+        }
+      }
+      updateSeriesThumbnail(thumbs, dicomModel);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      pipeline.parsers.shutdownNow();
+      pipeline.readers.clear();
+    }
+  }
+
+  /** Pool of threads parsing the DICOM headers for the model builder. */
+  protected final class Pipeline {
+    private final BlockingQueue<DicomMediaIO> readers = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService parsers =
+        ThreadUtil.buildNewFixedThreadExecutor(PARSER_THREADS, "Dicom Import"); // NON-NLS
+
+    private Pipeline() {}
+
+    /**
+     * Executes a task in the pool. The import is not finished while the task is running.
+     *
+     * @param task the task
+     */
+    public void execute(Runnable task) {
+      pending.incrementAndGet();
+      try {
+        parsers.execute(
+            () -> {
+              try {
+                if (!isCancelled()) {
+                  task.run();
+                }
+              } finally {
+                pending.decrementAndGet();
+              }
+            });
+      } catch (RejectedExecutionException e) {
+        // Import stopped
+        pending.decrementAndGet();
+      }
+    }
+
+    /**
+     * Parses the file in the pool.
+     *
+     * @param file the file
+     */
+    public void addFile(File file) {
+      execute(() -> readFile(file));
+    }
+
+    /**
+     * Parses the file in the current thread.
+     *
+     * @param file the file
+     * @return true if the file is a readable DICOM given to the model builder
+     */
+    public boolean readFile(File file) {
+      return LoadLocalDicom.this.readFile(file, readers);
+    }
+  }
 
-          File gpxFile = new File(value.getPath() + ".xml");
-          GraphicModel graphicModel = XmlSerializer.readPresentationModel(gpxFile);
-          if (graphicModel != null) {
-            loader.setTag(TagW.PresentationModel, graphicModel);
+  private void scanFolder(Path folder, Pipeline pipeline) {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+      for (Path path : stream) {
+        if (isCancelled()) {
+          return;
+        }
+        if (Files.isDirectory(path)) {
+          if (recursive) {
+            pipeline.execute(() -> scanFolder(path, pipeline));
           }
-        } else if (reading == Reading.ERROR) {
-          errors.incrementAndGet();
+        } else {
+          pipeline.addFile(path.toFile());
         }
       }
+    } catch (IOException | DirectoryIteratorException e) {
+      LOGGER.error("Cannot read the folder {}", folder, e);
     }
-    updateSeriesThumbnail(thumbs, dicomModel);
+  }
 
-    for (File folder : folders) {
-      addSelectionAndNotify(folder.listFiles(), false);
+  private boolean readFile(File value, BlockingQueue<DicomMediaIO> readers) {
+    if (value.canRead() && FileUtil.isFileExtensionMatching(value, DicomCodec.FILE_EXTENSIONS)
+        || MimeInspector.isMatchingMimeTypeFromMagicNumber(value, DicomMediaIO.DICOM_MIMETYPE)) {
+      DicomMediaIO loader = new DicomMediaIO(value);
+      Reading reading = loader.getReadingStatus();
+      if (reading == Reading.READABLE) {
+        if (value.getPath().startsWith(AppProperties.APP_TEMP_DIR.getPath())) {
+          loader.getFileCache().setOriginalTempFile(value);
+        }
+        File gpxFile = new File(value.getPath() + ".xml");
+        GraphicModel graphicModel = XmlSerializer.readPresentationModel(gpxFile);
+        if (graphicModel != null) {
+          loader.setTag(TagW.PresentationModel, graphicModel);
+        }
+        try {
+          // Wait when the model cannot be built as fast as the files are parsed
+          readers.put(loader);
+          return true;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      } else if (reading == Reading.ERROR) {
+        errors.incrementAndGet();
+      }
     }
+    return false;
   }
 
   public static void updateSeriesThumbnail(List<SeriesThumbnail> thumbs, DicomModel dicomModel) {
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import net.lingala.zip4j.ZipFile;
+import net.lingala.zip4j.model.FileHeader;
+import net.lingala.zip4j.model.enums.CompressionMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.explorer.model.DataExplorerModel;
+import org.weasis.core.util.FileUtil;
+import org.weasis.dicom.explorer.HangingProtocols.OpeningViewer;
+
+/**
+ * Imports the DICOM files of a ZIP archive while it is read. The entries are read in the order of
+ * the archive from the central directory and each file is given to the parsing pipeline as soon as
+ * it is written in the temporary folder, so the first images are displayed before the end of the
+ * extraction.
+ *
+ * <p>The stored entries (not compressed and not encrypted) are copied with a channel transfer from
+ * their offset in the archive, the other entries are inflated in a stream. The files that are not
+ * readable DICOM are deleted after parsing.
+ */
+public class LoadZipDicom extends LoadLocalDicom {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadZipDicom.class);
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final String GPX_EXTENSION = ".xml"; // NON-NLS
+
+  private final File archive;
+  private final char[] password;
+  private final File folder;
+
+  /**
+   * @param archive the ZIP file
+   * @param password the password of an encrypted archive or null
+   * @param folder the temporary folder where the entries are written
+   * @param explorerModel the DICOM model
+   * @param openingMode the opening mode of the viewers
+   */
+  public LoadZipDicom(
+      File archive,
+      char[] password,
+      File folder,
+      DataExplorerModel explorerModel,
+      OpeningViewer openingMode) {
+    super(new File[0], true, explorerModel, openingMode);
+    this.archive = Objects.requireNonNull(archive);
+    this.password = password;
+    this.folder = Objects.requireNonNull(folder);
+  }
+
+  @Override
+  protected Boolean doInBackground() throws Exception {
+    startLoadingEvent();
+    openingStrategy.prepareImport();
+    importInPipeline(pipeline -> pipeline.execute(() -> readEntries(pipeline)));
+    return true;
+  }
+
+  private void readEntries(Pipeline pipeline) {
+    try (ZipFile zipFile = new ZipFile(archive, password);
+        FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+      List<FileHeader> headers = new ArrayList<>(zipFile.getFileHeaders());
+      // Read the archive sequentially
+      headers.sort(Comparator.comparingLong(FileHeader::getOffsetLocalHeader));
+      Map<String, FileHeader> entries = new HashMap<>();
+      for (FileHeader header : headers) {
+        entries.put(header.getFileName(), header);
+      }
+
+      boolean split = zipFile.isSplitArchive();
+      Path root = folder.toPath().toAbsolutePath().normalize();
+      Set<String> done = new HashSet<>();
+      for (FileHeader header : headers) {
+        if (isCancelled()) {
+          return;
+        }
+        String name = header.getFileName();
+        if (header.isDirectory() || done.contains(name) || isPresentationModel(name, entries)) {
+          continue;
+        }
+        // The presentation model must be written before the DICOM file is parsed
+        FileHeader gpx = entries.get(name + GPX_EXTENSION);
+        if (gpx != null && done.add(gpx.getFileName())) {
+          extract(zipFile, channel, split, gpx, root);
+        }
+        done.add(name);
+        File file = extract(zipFile, channel, split, header, root);
+        if (file != null) {
+          pipeline.execute(
+              () -> {
+                if (!pipeline.readFile(file)) {
+                  FileUtil.delete(file);
+                }
+              });
+        }
+      }
+    } catch (IOException e) {
+      errors.incrementAndGet();
+      LOGGER.error("Cannot read the archive {}", archive, e);
+    }
+  }
+
+  private static boolean isPresentationModel(String name, Map<String, FileHeader> entries) {
+    return name.endsWith(GPX_EXTENSION)
+        && entries.containsKey(name.substring(0, name.length() - GPX_EXTENSION.length()));
+  }
+
+  private File extract(
+      ZipFile zipFile, FileChannel channel, boolean split, FileHeader header, Path root) {
+    Path target = root.resolve(header.getFileName()).normalize();
+    if (!target.startsWith(root)) {
+      LOGGER.warn("Skip the entry outside of the destination folder: {}", header.getFileName());
+      return null;
+    }
+    try {
+      Files.createDirectories(target.getParent());
+      if (!split
+          && !header.isEncrypted()
+          && header.getCompressionMethod() == CompressionMethod.STORE) {
+        copyStoredEntry(channel, header, target);
+      } else {
+        try (InputStream in = zipFile.getInputStream(header)) {
+          Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+      return target.toFile();
+    } catch (IOException e) {
+      errors.incrementAndGet();
+      LOGGER.error("Cannot extract {}", header.getFileName(), e);
+      FileUtil.delete(target.toFile());
+      return null;
+    }
+  }
+
+  private static void copyStoredEntry(FileChannel channel, FileHeader header, Path target)
+      throws IOException {
+    // The central directory does not give the length of the extra field of the local header
+    long offset = header.getOffsetLocalHeader();
+    ByteBuffer buffer = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position()) < 0) {
+        throw new EOFException("Unexpected end of the archive");
+      }
+    }
+    if (buffer.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+      throw new IOException("Invalid local header of " + header.getFileName());
+    }
+    long start =
+        offset
+            + LOCAL_HEADER_SIZE
+            + Short.toUnsignedInt(buffer.getShort(26))
+            + Short.toUnsignedInt(buffer.getShort(28));
+    long size = header.getCompressedSize();
+    if (start + size > channel.size()) {
+      throw new EOFException("Unexpected end of the archive");
+    }
+
+    try (FileChannel out =
+        FileChannel.open(
+            target,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      long position = 0;
+      while (position < size) {
+        long n = channel.transferTo(start + position, size - position, out);
+        if (n <= 0) {
+          throw new EOFException("Unexpected end of the archive");
+        }
+        position += n;
+      }
+    }
+  }
+}
@@ -20,15 +20,34 @@ public class DicomSeriesProgressMonitor extends SeriesProgressMonitor {
 
   private volatile boolean wadoRequest;
   private byte[] header;
+  private final DownloadConcurrency concurrency;
 
   public DicomSeriesProgressMonitor(final Series series, InputStream in, boolean wadoRequest) {
+    this(series, in, wadoRequest, null);
+  }
+
+  /**
+   * @param concurrency the adaptive concurrency of the host receiving the transferred bytes, can be
+   *     null
+   */
+  public DicomSeriesProgressMonitor(
+      final Series series, InputStream in, boolean wadoRequest, DownloadConcurrency concurrency) {
     super(series, in);
     this.wadoRequest = wadoRequest;
+    this.concurrency = concurrency;
     if (wadoRequest) {
       header = new byte[512];
     }
   }
 
+  @Override
+  protected void updateSeriesProgression(long addSize) {
+    super.updateSeriesProgression(addSize);
+    if (concurrency != null) {
+      concurrency.addBytes(addSize);
+    }
+  }
+
   @Override
   public int read(byte[] b) throws IOException {
     int nr = super.read(b);
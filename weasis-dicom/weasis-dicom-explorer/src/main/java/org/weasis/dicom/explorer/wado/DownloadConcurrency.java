@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer.wado;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.api.util.NetworkUtil;
+
+/**
+ * Controls the number of simultaneous downloads from a host with an AIMD (additive increase,
+ * multiplicative decrease) window.
+ *
+ * <p>The throughput, the latency and the errors are measured on periods of one second. The window
+ * starts at half of the maximum number of connections per host and grows by one download when it
+ * was fully used and the throughput has improved. It is halved when the server is overloaded (HTTP
+ * 429 or 503) or on a timeout, and reduced when the latency increases strongly compared to the
+ * lowest latency (the requests are queued by the server). The lowest latency slowly rises to the
+ * current latency, so a lasting change of the network latency does not reduce the window forever.
+ */
+public class DownloadConcurrency {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DownloadConcurrency.class);
+
+  /** Enable the adaptive concurrency of the downloads (true by default). */
+  public static final String P_ADAPTIVE_CONCURRENCY = "download.adaptive.concurrency";
+
+  private static final long SAMPLE_PERIOD = TimeUnit.SECONDS.toNanos(1);
+  private static final double MIN_WINDOW = 1.0;
+  // Part of the gap to the current latency recovered by the lowest latency at each period
+  private static final double LATENCY_FLOOR_DECAY = 0.05;
+
+  private static final Map<String, DownloadConcurrency> HOSTS = new ConcurrentHashMap<>();
+
+  /**
+   * Live metrics of the downloads from a host.
+   *
+   * @param window the current number of simultaneous downloads allowed
+   * @param inFlight the number of downloads in progress
+   * @param bytesPerSecond the throughput of the last period
+   * @param errorRate the ratio of failed requests in the last period
+   */
+  public record Metrics(int window, int inFlight, double bytesPerSecond, double errorRate) {}
+
+  private final String host;
+  private final double maxWindow;
+  private final LongAdder bytes;
+
+  private double window;
+  private int inFlight;
+  private boolean saturated;
+  private long sampleStart;
+  private int sampleRequests;
+  private int sampleErrors;
+  private long sampleLatency;
+  private int sampleLatencyCount;
+  private long minLatency;
+  private double lastThroughput;
+  private long lastDecrease;
+  private volatile Metrics metrics;
+
+  DownloadConcurrency(String host, int initialWindow, int maxWindow) {
+    this(host, initialWindow, maxWindow, System.nanoTime());
+  }
+
+  DownloadConcurrency(String host, int initialWindow, int maxWindow, long start) {
+    this.host = host;
+    this.maxWindow = Math.max(MIN_WINDOW, maxWindow);
+    this.window = Math.clamp(initialWindow, MIN_WINDOW, this.maxWindow);
+    this.bytes = new LongAdder();
+    this.sampleStart = start;
+    this.lastDecrease = sampleStart - SAMPLE_PERIOD;
+    this.minLatency = Long.MAX_VALUE;
+    this.metrics = new Metrics((int) window, 0, 0.0, 0.0);
+  }
+
+  public static boolean isAdaptive() {
+    return GuiUtils.getUICore()
+        .getSystemPreferences()
+        .getBooleanProperty(P_ADAPTIVE_CONCURRENCY, true);
+  }
+
+  /**
+   * @param url the URL of the download
+   * @return the controller of the host of the URL or null if the concurrency is not adaptive
+   */
+  public static DownloadConcurrency forUrl(String url) {
+    if (url == null || !url.startsWith("http") || !isAdaptive()) { // NON-NLS
+      return null;
+    }
+    String key;
+    try {
+      URI uri = new URI(url);
+      key = uri.getScheme() + "://" + uri.getRawAuthority();
+    } catch (Exception e) {
+      return null;
+    }
+    return HOSTS.computeIfAbsent(
+        key,
+        k -> {
+          int max = NetworkUtil.getMaxConnectionsPerHost();
+          int preferred =
+              GuiUtils.getUICore()
+                      .getSystemPreferences()
+                      .getIntProperty(DownloadManager.CONCURRENT_SERIES, 3)
+                  * GuiUtils.getUICore()
+                      .getSystemPreferences()
+                      .getIntProperty(LoadSeries.CONCURRENT_DOWNLOADS_IN_SERIES, 4);
+          return new DownloadConcurrency(k, getInitialWindow(preferred, max), max);
+        });
+  }
+
+  /**
+   * @param preferred the number of simultaneous downloads of the preferences
+   * @param maxWindow the maximum number of connections per host
+   * @return the initial window, below the maximum so the window can grow
+   */
+  static int getInitialWindow(int preferred, int maxWindow) {
+    return Math.clamp(preferred, 1, Math.max(1, maxWindow / 2));
+  }
+
+  /**
+   * @return the sum of the windows of all the hosts, or 0 when nothing has been downloaded
+   */
+  public static int getTotalWindow() {
+    int total = 0;
+    for (DownloadConcurrency c : HOSTS.values()) {
+      // Do not lock the controllers
+      total += c.getMetrics().window();
+    }
+    return total;
+  }
+
+  public synchronized int getWindow() {
+    return (int) window;
+  }
+
+  public Metrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Waits until a new download is allowed by the window.
+   *
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public synchronized void acquire() throws InterruptedException {
+    while (inFlight >= (int) window) {
+      saturated = true;
+      wait(TimeUnit.NANOSECONDS.toMillis(SAMPLE_PERIOD));
+      endSampleIfNeeded(System.nanoTime());
+    }
+    inFlight++;
+    if (inFlight >= (int) window) {
+      saturated = true;
+    }
+  }
+
+  /**
+   * Releases a download slot.
+   *
+   * @param success false if the download has failed
+   */
+  public void release(boolean success) {
+    release(success, System.nanoTime());
+  }
+
+  synchronized void release(boolean success, long now) {
+    inFlight = Math.max(0, inFlight - 1);
+    sampleRequests++;
+    if (!success) {
+      sampleErrors++;
+    }
+    endSampleIfNeeded(now);
+    notifyAll();
+  }
+
+  /**
+   * @param latency the time between the request and the beginning of the response in nanoseconds
+   */
+  public synchronized void addLatency(long latency) {
+    sampleLatency += latency;
+    sampleLatencyCount++;
+    minLatency = Math.min(minLatency, latency);
+  }
+
+  public void addBytes(long n) {
+    bytes.add(n);
+  }
+
+  /** Signals an overloaded server (HTTP 429 or 503) or a timeout: the window is halved. */
+  public void onOverload() {
+    onOverload(System.nanoTime());
+  }
+
+  synchronized void onOverload(long now) {
+    // Only one decrease per period, the failures of the requests sent together have the same cause
+    if (now - lastDecrease >= SAMPLE_PERIOD) {
+      lastDecrease = now;
+      setWindow(window / 2.0);
+    }
+  }
+
+  private void endSampleIfNeeded(long now) {
+    long elapsed = now - sampleStart;
+    if (elapsed < SAMPLE_PERIOD) {
+      return;
+    }
+    double throughput = bytes.sumThenReset() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    double errorRate = sampleRequests == 0 ? 0.0 : sampleErrors / (double) sampleRequests;
+    long avgLatency = sampleLatencyCount == 0 ? 0 : sampleLatency / sampleLatencyCount;
+
+    if (sampleErrors == 0 && now - lastDecrease >= SAMPLE_PERIOD) {
+      if (avgLatency > 0 && minLatency != Long.MAX_VALUE && avgLatency > 2 * minLatency) {
+        // The latency has risen: the requests are probably queued by the server
+        lastDecrease = now;
+        setWindow(window * 0.8);
+      } else if (saturated && throughput > lastThroughput * 1.05) {
+        setWindow(window + 1.0);
+      }
+    }
+    if (avgLatency > minLatency && minLatency != Long.MAX_VALUE) {
+      minLatency += (long) Math.ceil((avgLatency - minLatency) * LATENCY_FLOOR_DECAY);
+    }
+
+    lastThroughput = throughput;
+    sampleStart = now;
+    sampleRequests = 0;
+    sampleErrors = 0;
+    sampleLatency = 0;
+    sampleLatencyCount = 0;
+    saturated = false;
+    metrics = new Metrics((int) window, inFlight, throughput, errorRate);
+  }
+
+  private void setWindow(double value) {
+    int previous = (int) window;
+    window = Math.clamp(value, MIN_WINDOW, maxWindow);
+    if (previous != (int) window) {
+      Metrics m = metrics;
+      metrics = new Metrics((int) window, inFlight, m.bytesPerSecond(), m.errorRate());
+      LOGGER.debug("Simultaneous downloads from {}: {}", host, metrics);
+      notifyAll();
+      if (HOSTS.get(host) == this) {
+        DownloadManager.adaptConcurrentSeries();
+      }
+    }
+  }
+}
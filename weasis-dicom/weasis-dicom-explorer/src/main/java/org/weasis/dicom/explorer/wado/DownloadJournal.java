@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer.wado;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.api.service.BundlePreferences;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+
+/**
+ * On-disk journal of the DICOM instances downloaded for a series. Each completed instance is
+ * written in the folder of the journal and recorded with its size, its modification time and its
+ * checksum, so the download can restart after a stop, a network failure or a crash of the
+ * application without fetching again the instances already received. The checksum is computed
+ * while the file is written and is only verified when the file has been modified since it was
+ * recorded.
+ *
+ * <p>The folder of the series also contains the partially downloaded files that can be resumed
+ * with an HTTP Range request. The files of the instances are deleted when the series is closed and
+ * the journal is deleted when the series has been fully downloaded. As the data folder is shared by
+ * the running instances of the application, only the folders not modified for one week are removed
+ * at the next start.
+ */
+public class DownloadJournal {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DownloadJournal.class);
+
+  public static final String P_DOWNLOAD_JOURNAL = "download.resume.journal";
+
+  private static final String JOURNAL_NAME = "journal.txt";
+  private static final String PARTIAL_EXTENSION = ".part";
+  private static final long MAX_AGE = TimeUnit.DAYS.toMillis(7);
+
+  private final File directory;
+  private final File journalFile;
+  private final Map<String, Entry> entries;
+  private boolean deleted;
+
+  record Entry(String fileName, long size, long lastModified, long checksum) {}
+
+  private static final class JournalDirectoryHolder {
+    private static final File JOURNAL_DIR = buildJournalDirectory();
+  }
+
+  private DownloadJournal(File directory) {
+    this.directory = directory;
+    this.journalFile = new File(directory, JOURNAL_NAME);
+    this.entries = new HashMap<>();
+    readJournal();
+  }
+
+  private static File buildJournalDirectory() {
+    File dir =
+        new File(
+            BundlePreferences.getDataFolder(
+                AppProperties.getBundleContext(DownloadJournal.class)),
+            "download"); // NON-NLS
+    cleanDirectory(dir);
+    return dir;
+  }
+
+  /**
+   * Removes the series folders that have not been modified for a long time. A folder without
+   * journal can be used by another instance of the application which is downloading the series.
+   *
+   * @param dir the root directory of the journals
+   */
+  static void cleanDirectory(File dir) {
+    File[] folders = dir.listFiles(File::isDirectory);
+    if (folders != null) {
+      long limit = System.currentTimeMillis() - MAX_AGE;
+      for (File folder : folders) {
+        if (getLastModified(folder) < limit) {
+          FileUtil.recursiveDelete(folder);
+        }
+      }
+    }
+  }
+
+  private static long getLastModified(File folder) {
+    long lastModified = folder.lastModified();
+    File[] files = folder.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        lastModified = Math.max(lastModified, file.lastModified());
+      }
+    }
+    return lastModified;
+  }
+
+  /**
+   * @param seriesUID the Series Instance UID
+   * @return the journal of the series or null if the journal cannot be created
+   */
+  public static DownloadJournal open(String seriesUID) {
+    if (!StringUtil.hasText(seriesUID)) {
+      return null;
+    }
+    return open(JournalDirectoryHolder.JOURNAL_DIR, seriesUID);
+  }
+
+  static DownloadJournal open(File root, String seriesUID) {
+    File dir = new File(root, getFileName(seriesUID));
+    dir.mkdirs();
+    if (!dir.isDirectory()) {
+      LOGGER.warn("Cannot create the download journal folder {}", dir);
+      return null;
+    }
+    return new DownloadJournal(dir);
+  }
+
+  private static String getFileName(String uid) {
+    // A UID contains only digits and dots
+    if (uid.matches("[0-9.]{1,64}")) {
+      return uid;
+    }
+    return Integer.toHexString(uid.hashCode());
+  }
+
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @param sopInstanceUID the SOP Instance UID
+   * @return the file receiving the data of an instance that can be resumed
+   */
+  public File getPartialFile(String sopInstanceUID) {
+    return new File(directory, getFileName(sopInstanceUID) + PARTIAL_EXTENSION);
+  }
+
+  public synchronized boolean contains(String sopInstanceUID) {
+    return entries.containsKey(sopInstanceUID);
+  }
+
+  /**
+   * Returns the file of an instance recorded in the journal, only when its size is unchanged and
+   * when it has not been modified or its checksum is unchanged.
+   *
+   * @param sopInstanceUID the SOP Instance UID
+   * @return the file or null if the instance must be downloaded
+   */
+  public File getCompletedFile(String sopInstanceUID) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(sopInstanceUID);
+    }
+    if (entry != null) {
+      File file = new File(directory, entry.fileName());
+      if (file.length() == entry.size()) {
+        if (file.lastModified() == entry.lastModified()) {
+          return file;
+        }
+        try {
+          if (checksum(file) == entry.checksum()) {
+            return file;
+          }
+        } catch (IOException e) {
+          LOGGER.debug("Cannot read {}", file, e);
+        }
+      }
+      if (file.exists()) {
+        LOGGER.warn("The file {} of the download journal is not valid", file);
+      }
+      synchronized (this) {
+        entries.remove(sopInstanceUID);
+      }
+      FileUtil.delete(file);
+    }
+    return null;
+  }
+
+  /**
+   * Records a completed instance. The file must be in the directory of the journal.
+   *
+   * @param sopInstanceUID the SOP Instance UID
+   * @param file the DICOM file
+   * @param checksum the CRC32C of the file, computed while it was written
+   */
+  public void addCompleted(String sopInstanceUID, File file, long checksum) {
+    if (!StringUtil.hasText(sopInstanceUID) || !directory.equals(file.getParentFile())) {
+      return;
+    }
+    try {
+      Entry entry = new Entry(file.getName(), file.length(), file.lastModified(), checksum);
+      synchronized (this) {
+        Entry previous = entries.get(sopInstanceUID);
+        if (!deleted && (previous == null || !previous.fileName().equals(entry.fileName()))) {
+          try (Writer writer =
+              Files.newBufferedWriter(
+                  journalFile.toPath(),
+                  StandardCharsets.UTF_8,
+                  StandardOpenOption.CREATE,
+                  StandardOpenOption.APPEND)) {
+            writer.write(
+                sopInstanceUID
+                    + '\t'
+                    + entry.fileName()
+                    + '\t'
+                    + entry.size()
+                    + '\t'
+                    + entry.lastModified()
+                    + '\t'
+                    + entry.checksum()
+                    + '\n');
+          }
+          entries.put(sopInstanceUID, entry);
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.error("Cannot write in the download journal {}", journalFile, e);
+    }
+  }
+
+  /** Deletes the journal when all the instances have been downloaded. */
+  public synchronized void delete() {
+    deleted = true;
+    entries.clear();
+    FileUtil.delete(journalFile);
+  }
+
+  private synchronized void readJournal() {
+    if (!journalFile.isFile()) {
+      return;
+    }
+    try (BufferedReader reader =
+        Files.newBufferedReader(journalFile.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] values = line.split("\t");
+        // Ignore an incomplete line (e.g. crash while writing)
+        if (values.length == 5) {
+          try {
+            entries.put(
+                values[0],
+                new Entry(
+                    values[1],
+                    Long.parseLong(values[2]),
+                    Long.parseLong(values[3]),
+                    Long.parseLong(values[4])));
+          } catch (NumberFormatException e) {
+            LOGGER.debug("Invalid line in the download journal: {}", line);
+          }
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.error("Cannot read the download journal {}", journalFile, e);
+    }
+  }
+
+  private static long checksum(File file) throws IOException {
+    CRC32C crc = new CRC32C();
+    updateChecksum(crc, file, file.length());
+    return crc.getValue();
+  }
+
+  /**
+   * Updates a checksum with the first bytes of a file, for instance with the bytes of a partial
+   * file before appending the remaining bytes.
+   *
+   * @param checksum the checksum to update
+   * @param file the file
+   * @param length the number of bytes to read
+   * @throws IOException if the file cannot be read
+   */
+  static void updateChecksum(Checksum checksum, File file, long length) throws IOException {
+    byte[] buf = new byte[65536];
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      long remaining = length;
+      int n;
+      while (remaining > 0 && (n = in.read(buf, 0, (int) Math.min(buf.length, remaining))) > 0) {
+        checksum.update(buf, 0, n);
+        remaining -= n;
+      }
+    }
+  }
+}
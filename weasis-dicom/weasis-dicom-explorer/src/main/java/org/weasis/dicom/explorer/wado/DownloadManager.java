@@ -226,7 +226,7 @@ public static synchronized void removeLoadSeries(LoadSeries series, DicomModel d
       if (DownloadManager.TASKS.isEmpty()) {
         // When all loadseries are ended, reset to default the number of simultaneous download
         // (series)
-        DownloadManager.CONCURRENT_EXECUTOR.setCorePoolSize(
+        setConcurrentSeries(
             GuiUtils.getUICore()
                 .getSystemPreferences()
                 .getIntProperty(DownloadManager.CONCURRENT_SERIES, 3));
@@ -234,6 +234,37 @@ public static synchronized void removeLoadSeries(LoadSeries series, DicomModel d
     }
   }
 
+  private static synchronized void setConcurrentSeries(int size) {
+    int nb = Math.max(1, size);
+    // The core size cannot be greater than the maximum size
+    if (nb > CONCURRENT_EXECUTOR.getMaximumPoolSize()) {
+      CONCURRENT_EXECUTOR.setMaximumPoolSize(nb);
+      CONCURRENT_EXECUTOR.setCorePoolSize(nb);
+    } else {
+      CONCURRENT_EXECUTOR.setCorePoolSize(nb);
+      CONCURRENT_EXECUTOR.setMaximumPoolSize(nb);
+    }
+  }
+
+  /**
+   * Adapts the number of series downloaded simultaneously to the number of simultaneous downloads
+   * allowed by the adaptive controllers of the hosts (see {@link DownloadConcurrency}), between one
+   * and twice the value of the preferences.
+   */
+  static void adaptConcurrentSeries() {
+    int window = DownloadConcurrency.getTotalWindow();
+    if (window > 0) {
+      int series =
+          GuiUtils.getUICore().getSystemPreferences().getIntProperty(CONCURRENT_SERIES, 3);
+      int instances =
+          GuiUtils.getUICore()
+              .getSystemPreferences()
+              .getIntProperty(LoadSeries.CONCURRENT_DOWNLOADS_IN_SERIES, 4);
+      int size = (window + instances - 1) / Math.max(1, instances);
+      setConcurrentSeries(Math.clamp(size, 1, series * 2));
+    }
+  }
+
   public static void stopDownloading(DicomSeries series, DicomModel dicomModel) {
     if (series != null) {
       synchronized (DownloadManager.getTasks()) {
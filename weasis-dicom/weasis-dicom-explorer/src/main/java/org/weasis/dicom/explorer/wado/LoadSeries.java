@@ -14,15 +14,19 @@
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelListener;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -30,6 +34,7 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -37,19 +42,24 @@
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
 import javax.swing.JProgressBar;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.ElementDictionary;
 import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
 import org.dcm4che3.io.DicomInputStream;
-import org.dcm4che3.io.DicomInputStream.IncludeBulkData;
 import org.dcm4che3.io.DicomOutputStream;
-import org.dcm4che3.util.SafeClose;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.auth.AuthMethod;
@@ -68,9 +78,9 @@
 import org.weasis.core.api.media.data.Thumbnail;
 import org.weasis.core.api.model.PerformanceModel;
 import org.weasis.core.api.service.AuditLog;
-import org.weasis.core.api.util.AuthResponse;
 import org.weasis.core.api.util.ClosableURLConnection;
 import org.weasis.core.api.util.HttpResponse;
+import org.weasis.core.api.util.HttpStatusException;
 import org.weasis.core.api.util.NetworkUtil;
 import org.weasis.core.api.util.ResourceUtil.ResourceIconPath;
 import org.weasis.core.api.util.ThreadUtil;
@@ -100,6 +110,7 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
 
   private static final Logger LOGGER = LoggerFactory.getLogger(LoadSeries.class);
   public static final String CONCURRENT_DOWNLOADS_IN_SERIES = "download.concurrent.series.images";
+  public static final String WADO_RS_SERIES_RETRIEVE = "download.wado.rs.series.retrieve";
 
   public static final File DICOM_TMP_DIR =
       AppProperties.buildAccessibleTempDirectory("downloading"); // NON-NLS
@@ -142,6 +153,7 @@ public enum Status {
   private final AtomicInteger errors;
   private volatile boolean hasError = false;
   private final AtomicBoolean seriesInitialized = new AtomicBoolean(false);
+  private volatile DownloadJournal journal;
 
   public LoadSeries(
       DicomSeries dicomSeries,
@@ -267,6 +279,11 @@ protected void done() {
       progressBar.setIndeterminate(false);
       this.dicomSeries.setSeriesLoader(null);
       DownloadManager.removeLoadSeries(this, dicomModel);
+      DownloadJournal j = journal;
+      if (j != null && !hasDownloadFailed()) {
+        // All the instances are downloaded, nothing to resume
+        j.delete();
+      }
 
       String loadType = getLoadType();
       String seriesUID = (String) dicomSeries.getTagValue(dicomSeries.getTagID());
@@ -453,6 +470,15 @@ private boolean isSOPInstanceUIDExist(
     return false;
   }
 
+  // Solves missing tmp folder problem (on Windows).
+  private static File getDicomTmpDir() {
+    if (!DICOM_TMP_DIR.exists()) {
+      LOGGER.info("DICOM tmp dir not found. Re-creating it!");
+      AppProperties.buildAccessibleTempDirectory("downloading"); // NON-NLS
+    }
+    return DICOM_TMP_DIR;
+  }
+
   private void incrementProgressBarValue() {
     GuiExecutor.execute(() -> progressBar.setValue(progressBar.getValue() + 1));
   }
@@ -470,8 +496,12 @@ private Boolean startDownload() {
 
     List<SopInstance> sopList = seriesInstanceList.getSortedList();
 
+    // With the adaptive concurrency, the number of simultaneous downloads is limited by the window
+    // of the host and the threads in excess are waiting
     ExecutorService imageDownloader =
-        ThreadUtil.buildNewFixedThreadExecutor(concurrentDownloads, "Image Downloader"); // NON-NLS
+        ThreadUtil.buildNewFixedThreadExecutor(
+            DownloadConcurrency.isAdaptive() ? concurrentDownloads * 2 : concurrentDownloads,
+            "Image Downloader"); // NON-NLS
     ArrayList<Callable<Boolean>> tasks = new ArrayList<>(sopList.size());
     int[] dindex = generateDownloadOrder(sopList.size());
     GuiExecutor.execute(
@@ -479,6 +509,29 @@ private Boolean startDownload() {
           progressBar.setMaximum(sopList.size());
           progressBar.setValue(0);
         });
+    dicomSeries.setTag(DOWNLOAD_START_TIME, System.currentTimeMillis());
+
+    if (writeInCache
+        && GuiUtils.getUICore()
+            .getSystemPreferences()
+            .getBooleanProperty(DownloadJournal.P_DOWNLOAD_JOURNAL, true)) {
+      journal =
+          DownloadJournal.open(TagD.getTagValue(dicomSeries, Tag.SeriesInstanceUID, String.class));
+      if (journal != null) {
+        replayJournal(study, sopList, imageDownloader);
+      }
+    }
+
+    String seriesURL = getSeriesRetrieveURL(wado, study, sopList);
+    if (seriesURL != null) {
+      int nb = retrieveSeries(seriesURL, imageDownloader);
+      LOGGER.debug("{} instances received from the series request {}", nb, seriesURL);
+    }
+
+    // The instances already loaded are counted below
+    GuiExecutor.execute(() -> progressBar.setValue(0));
+    // Download the instances that are still missing (all of them when the series has not been
+    // retrieved with a single request)
     for (int k = 0; k < sopList.size(); k++) {
       SopInstance instance = sopList.get(dindex[k]);
       if (isCancelled()) {
@@ -531,13 +584,20 @@ private Boolean startDownload() {
       request.append(wado.getAdditionnalParameters());
       String url = request.toString();
 
+      // Only a file can be resumed, WADO streams are modified on the fly by the server
+      boolean resumable =
+          journal != null
+              && instance.getDirectDownloadFile() != null
+              && !wado.isWadoRS()
+              && wado.getOverrideDicomTagIDList() == null
+              && url.startsWith("http"); // NON-NLS
+
       LOGGER.debug("Download DICOM instance {} index {}.", url, k);
-      Download ref = new Download(url);
+      Download ref = new Download(url, resumable ? instance.getSopInstanceUID() : null);
       tasks.add(ref);
     }
 
     try {
-      dicomSeries.setTag(DOWNLOAD_START_TIME, System.currentTimeMillis());
       imageDownloader.invokeAll(tasks);
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
@@ -547,6 +607,152 @@ private Boolean startDownload() {
     return true;
   }
 
+  /**
+   * Adds to the series the instances downloaded before an interruption (stop, network failure or
+   * crash), when their files are unchanged.
+   */
+  private void replayJournal(
+      MediaSeriesGroup study, List<SopInstance> sopList, ExecutorService executor) {
+    List<Callable<Boolean>> tasks = new ArrayList<>();
+    Set<String> uids = new HashSet<>();
+    for (SopInstance instance : sopList) {
+      String uid = instance.getSopInstanceUID();
+      if (journal.contains(uid)
+          && uids.add(uid)
+          && !isSOPInstanceUIDExist(study, dicomSeries, uid)) {
+        tasks.add(
+            () -> {
+              File file = journal.getCompletedFile(uid);
+              if (file == null) {
+                return false;
+              }
+              // Already in the journal
+              addDicomFile(file, null);
+              return true;
+            });
+      }
+    }
+    if (!tasks.isEmpty()) {
+      LOGGER.info("Resume downloading {}: {} instances in the journal", dicomSeries, tasks.size());
+      try {
+        executor.invokeAll(tasks);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private File getCacheDirectory() {
+    DownloadJournal j = journal;
+    return j == null ? DicomMediaIO.DICOM_EXPORT_DIR : j.getDirectory();
+  }
+
+  /**
+   * Returns the URL for retrieving all the instances of the series with a single WADO-RS request,
+   * only when none of the instances has been loaded yet.
+   *
+   * @return the series URL or null if the instances must be downloaded one by one
+   */
+  private String getSeriesRetrieveURL(
+      WadoParameters wado, MediaSeriesGroup study, List<SopInstance> sopList) {
+    if (!wado.isWadoRS()
+        || sopList.size() < 2
+        || seriesInstanceList.isContainsMultiframes()
+        || !GuiUtils.getUICore()
+            .getSystemPreferences()
+            .getBooleanProperty(WADO_RS_SERIES_RETRIEVE, true)) {
+      return null;
+    }
+    String seriesURL = TagD.getTagValue(dicomSeries, Tag.RetrieveURL, String.class);
+    if (!StringUtil.hasText(seriesURL)) {
+      return null;
+    }
+    for (SopInstance instance : sopList) {
+      String instanceURL = instance.getDirectDownloadFile();
+      if (instanceURL == null
+          || !instanceURL.startsWith(seriesURL)
+          || isSOPInstanceUIDExist(study, dicomSeries, instance.getSopInstanceUID())) {
+        return null;
+      }
+    }
+    return wado.getBaseURL() + seriesURL + wado.getAdditionnalParameters();
+  }
+
+  /**
+   * Retrieves the instances of a series with a single WADO-RS request. Each part of the multipart
+   * response is written in the cache as soon as it is received, and then added to the series in
+   * another thread while the next parts are downloading.
+   *
+   * @param seriesURL the URL of the series
+   * @param executor the executor reading the DICOM files and adding them to the series
+   * @return the number of instances received
+   */
+  private int retrieveSeries(String seriesURL, ExecutorService executor) {
+    WadoParameters wadoParams = (WadoParameters) dicomSeries.getTagValue(TagW.WadoParameters);
+    int[] overrideList = wadoParams == null ? null : wadoParams.getOverrideDicomTagIDList();
+    List<Future<?>> instances = new ArrayList<>();
+    Download download = new Download(seriesURL);
+    LOGGER.debug("Start to retrieve the DICOM series {}", seriesURL);
+    try (HttpResponse response = NetworkUtil.getHttpResponse(seriesURL, urlParams, authMethod)) {
+      int code = response.getResponseCode();
+      if (code >= HttpURLConnection.HTTP_BAD_REQUEST) {
+        if (authMethod != null && code == HttpURLConnection.HTTP_UNAUTHORIZED) {
+          authMethod.resetToken();
+          authMethod.getToken();
+        }
+        LOGGER.warn("Cannot retrieve the series {}, response code of server: {}", seriesURL, code);
+        return 0;
+      }
+
+      Multipart.Handler handler =
+          (multipartReader, partNumber, headers) -> {
+            File tempFile = File.createTempFile("image_", ".dcm", getDicomTmpDir());
+            CRC32C crc = new CRC32C();
+            int bytesTransferred;
+            try (InputStream in = multipartReader.newPartInputStream()) {
+              if (overrideList == null) {
+                bytesTransferred =
+                    FileUtil.writeStream(
+                        new CheckedInputStream(new SeriesProgressMonitor(dicomSeries, in), crc),
+                        tempFile,
+                        false);
+              } else {
+                bytesTransferred =
+                    download.writFile(
+                        new SeriesProgressMonitor(dicomSeries, in), tempFile, overrideList, crc);
+              }
+            }
+            if (bytesTransferred != -1) {
+              FileUtil.delete(tempFile);
+              throw new InterruptedIOException("Series retrieve stopped at part " + partNumber);
+            }
+            File renameFile = new File(getCacheDirectory(), tempFile.getName());
+            File file = tempFile.renameTo(renameFile) ? renameFile : tempFile;
+            instances.add(executor.submit(() -> addDicomFile(file, crc)));
+          };
+      Multipart.parseMultipartRelated(
+          response.getHeaderField("Content-Type"), // NON-NLS
+          response.getInputStream(),
+          handler);
+    } catch (InterruptedIOException e) {
+      LOGGER.info("Retrieving the series {}: {}", seriesURL, e.getMessage());
+    } catch (Exception e) {
+      LOGGER.error("Retrieving the series {}", seriesURL, e);
+    }
+
+    for (Future<?> f : instances) {
+      try {
+        f.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        LOGGER.error("Adding a DICOM instance to the series", e.getCause());
+      }
+    }
+    return instances.size();
+  }
+
   private static Map<String, String> getHttpTags(WadoParameters wadoParams) {
     boolean hasWadoTags = wadoParams != null && wadoParams.getHttpTaglist() != null;
     boolean hasWadoLogin = wadoParams != null && wadoParams.getWebLogin() != null;
@@ -803,10 +1009,18 @@ private int[] generateDownloadOrder(final int size) {
   class Download implements Callable<Boolean> {
 
     private final String url; // download URL
+    private final String resumableUID; // SOP Instance UID when the download can be resumed
+    private final DownloadConcurrency concurrency; // adaptive concurrency of the host
     private Status status; // current status of download
 
     public Download(String url) {
+      this(url, null);
+    }
+
+    public Download(String url, String resumableUID) {
       this.url = url;
+      this.resumableUID = resumableUID;
+      this.concurrency = DownloadConcurrency.forUrl(url);
       this.status = Status.DOWNLOADING;
     }
 
@@ -836,26 +1050,59 @@ private HttpResponse replaceToDefaultTSUID() throws IOException {
 
     @Override
     public Boolean call() {
+      if (concurrency != null) {
+        try {
+          concurrency.acquire();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return Boolean.FALSE;
+        }
+      }
+      boolean success = false;
       try {
         process();
+        success = status != Status.ERROR;
       } catch (StreamIOException es) {
         hasError = true; // network issue (allow retrying)
         error();
+        onOverload(es);
         LOGGER.error("Downloading", es);
       } catch (IOException | URISyntaxException e) {
         error();
+        onOverload(e);
         LOGGER.error("Downloading", e);
+      } finally {
+        if (concurrency != null) {
+          concurrency.release(success);
+        }
       }
       return Boolean.TRUE;
     }
 
-    // Solves missing tmp folder problem (on Windows).
-    private File getDicomTmpDir() {
-      if (!DICOM_TMP_DIR.exists()) {
-        LOGGER.info("DICOM tmp dir not found. Re-creating it!");
-        AppProperties.buildAccessibleTempDirectory("downloading"); // NON-NLS
+    private void onOverload(Exception e) {
+      if (concurrency == null) {
+        return;
+      }
+      // Other errors (e.g. 404 or 500) do not depend on the number of simultaneous downloads
+      boolean overload =
+          e instanceof HttpStatusException hs
+              ? isOverloadStatus(hs.getStatusCode())
+              : e instanceof SocketTimeoutException
+                  || e instanceof HttpTimeoutException
+                  || e.getCause() instanceof SocketTimeoutException
+                  || e.getCause() instanceof HttpTimeoutException;
+      if (overload) {
+        concurrency.onOverload();
       }
-      return DICOM_TMP_DIR;
+    }
+
+    private static boolean isOverloadStatus(int code) {
+      // Too Many Requests or Service Unavailable
+      return code == 429 || code == HttpURLConnection.HTTP_UNAVAILABLE;
+    }
+
+    private DicomSeriesProgressMonitor monitor(InputStream in) {
+      return new DicomSeriesProgressMonitor(dicomSeries, in, false, concurrency);
     }
 
     /** Download file. */
@@ -867,14 +1114,39 @@ private boolean process() throws IOException, URISyntaxException {
       boolean cache = true;
       File tempFile = null;
       DicomMediaIO dicomReader = null;
-      HttpResponse urlcon = NetworkUtil.getHttpResponse(url, urlParams, authMethod);
+      DownloadJournal j = journal;
+      File partialFile = resumableUID == null || j == null ? null : j.getPartialFile(resumableUID);
+      long offset = partialFile == null ? 0 : partialFile.length();
+      // Checksum of the file for the download journal, computed while writing
+      CRC32C crc = new CRC32C();
+      HttpResponse urlcon;
+      long start = System.nanoTime();
+      try {
+        urlcon =
+            NetworkUtil.getHttpResponse(url, getUrlParameters(partialFile, offset), authMethod);
+      } catch (StreamIOException e) {
+        if (offset > 0) {
+          // e.g. range not satisfiable, restart from the beginning at the next attempt
+          FileUtil.delete(partialFile);
+        }
+        throw e;
+      }
       int code = urlcon.getResponseCode();
+      if (concurrency != null) {
+        concurrency.addLatency(System.nanoTime() - start);
+        if (isOverloadStatus(code)) {
+          concurrency.onOverload();
+        }
+      }
       if (code >= HttpURLConnection.HTTP_BAD_REQUEST) {
         if (authMethod != null && code == HttpURLConnection.HTTP_UNAUTHORIZED) {
           authMethod.resetToken();
           authMethod.getToken();
+        } else if (offset > 0) {
+          FileUtil.delete(partialFile);
         }
-        throw new IllegalStateException("Response code of server: " + urlcon.getResponseCode());
+        FileUtil.safeClose(urlcon);
+        throw new IllegalStateException("Response code of server: " + code);
       }
       try (InputStream stream = urlcon.getInputStream()) {
 
@@ -882,7 +1154,10 @@ private boolean process() throws IOException, URISyntaxException {
           cache = false;
         }
         if (cache) {
-          tempFile = File.createTempFile("image_", ".dcm", getDicomTmpDir());
+          tempFile =
+              partialFile == null
+                  ? File.createTempFile("image_", ".dcm", getDicomTmpDir())
+                  : partialFile;
         }
 
         // Cannot resume with WADO because the stream is modified on the fly by the wado server. In
@@ -892,14 +1167,21 @@ private boolean process() throws IOException, URISyntaxException {
         if (dicomSeries != null) {
           if (cache) {
             LOGGER.debug("Start to download DICOM instance {} to {}.", url, tempFile.getName());
-            int bytesTransferred = downloadInFileCache(urlcon, tempFile);
+            int bytesTransferred =
+                partialFile == null
+                    ? downloadInFileCache(urlcon, tempFile, crc)
+                    : downloadInPartialFile(urlcon, partialFile, offset, crc);
             if (bytesTransferred == -1) {
               LOGGER.info("End of downloading {} ", url);
             } else if (bytesTransferred >= 0) {
               return false;
             }
 
-            File renameFile = new File(DicomMediaIO.DICOM_EXPORT_DIR, tempFile.getName());
+            String name =
+                partialFile == null
+                    ? tempFile.getName()
+                    : FileUtil.nameWithoutExtension(tempFile.getName()) + ".dcm";
+            File renameFile = new File(getCacheDirectory(), name);
             if (tempFile.renameTo(renameFile)) {
               tempFile = renameFile;
             }
@@ -911,26 +1193,7 @@ private boolean process() throws IOException, URISyntaxException {
 
           dicomReader = new DicomMediaIO(tempFile);
           if (dicomReader.isReadableDicom() && firstImage) {
-            // Override the group (patient, study and series) by the dicom fields except the UID of
-            // the group
-            MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
-            dicomReader.writeMetaData(patient);
-            MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
-            dicomReader.writeMetaData(study);
-            dicomReader.writeMetaData(dicomSeries);
-            GuiExecutor.invokeAndWait(
-                () -> {
-                  Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
-                  if (thumb != null) {
-                    thumb.repaint();
-                  }
-                  dicomModel.firePropertyChange(
-                      new ObservableEvent(
-                          ObservableEvent.BasicAction.UPDATE_PARENT,
-                          dicomModel,
-                          null,
-                          dicomSeries));
-                });
+            updateGroupMetaData(dicomReader);
           }
         }
       }
@@ -939,18 +1202,7 @@ private boolean process() throws IOException, URISyntaxException {
       if (status == Status.DOWNLOADING) {
         status = Status.COMPLETE;
         if (tempFile != null && dicomSeries != null) {
-          Reading reading = dicomReader.getReadingStatus();
-          if (reading == Reading.READABLE) {
-            if (tempFile.getPath().startsWith(AppProperties.APP_TEMP_DIR.getPath())) {
-              dicomReader.getFileCache().setOriginalTempFile(tempFile);
-            }
-            final DicomMediaIO reader = dicomReader;
-            // Necessary to wait the runnable because the dicomSeries must be added to the
-            // dicomModel before reaching done() of SwingWorker
-            GuiExecutor.invokeAndWait(() -> updateUI(reader, firstImage));
-          } else if (reading == Reading.ERROR) {
-            errors.incrementAndGet();
-          }
+          addDicomInstance(dicomReader, tempFile, firstImage, cache ? crc : null);
         }
       }
       // Increment progress bar in EDT and repaint when downloaded
@@ -958,7 +1210,55 @@ private boolean process() throws IOException, URISyntaxException {
       return true;
     }
 
-    private int downloadInFileCache(HttpResponse response, File tempFile) throws IOException {
+    private URLParameters getUrlParameters(File partialFile, long offset) {
+      if (partialFile == null) {
+        return urlParams;
+      }
+      Map<String, String> headers = new HashMap<>(urlParams.getUnmodifiableHeaders());
+      // The byte ranges apply to the encoded content, so the content must not be compressed
+      headers.put("Accept-Encoding", "identity"); // NON-NLS
+      if (offset > 0) {
+        headers.put("Range", "bytes=" + offset + "-"); // NON-NLS
+      }
+      return new URLParameters(headers, urlParams.getConnectTimeout(), urlParams.getReadTimeout());
+    }
+
+    /**
+     * Writes the response in a file that is kept when the download is interrupted, so it can be
+     * resumed later with an HTTP Range request.
+     *
+     * @return -1 when all the bytes have been transferred, otherwise the bytes transferred before
+     *     the interruption
+     */
+    private int downloadInPartialFile(
+        HttpResponse response, File partialFile, long offset, Checksum checksum)
+        throws IOException {
+      // The server may ignore the Range header and send the whole file
+      boolean append = offset > 0 && response.getResponseCode() == HttpURLConnection.HTTP_PARTIAL;
+      if (append) {
+        String range = response.getHeaderField("Content-Range"); // NON-NLS
+        if (range == null || !range.startsWith("bytes " + offset + "-")) { // NON-NLS
+          FileUtil.delete(partialFile);
+          throw new StreamIOException("Unexpected Content-Range: " + range);
+        }
+        LOGGER.debug("Resume downloading {} from byte {}", url, offset);
+        // Only the bytes received before the interruption are read again
+        DownloadJournal.updateChecksum(checksum, partialFile, offset);
+      }
+      try (InputStream in = new CheckedInputStream(monitor(response.getInputStream()), checksum);
+          OutputStream out = new FileOutputStream(partialFile, append)) {
+        in.transferTo(out);
+        return -1;
+      } catch (InterruptedIOException e) {
+        return e.bytesTransferred;
+      } catch (IOException e) {
+        // The bytes already written remain in the file for the next attempt
+        throw new StreamIOException(e);
+      }
+    }
+
+    private int downloadInFileCache(HttpResponse response, File tempFile, Checksum checksum)
+        throws IOException {
       final WadoParameters wadoParams =
           (WadoParameters) dicomSeries.getTagValue(TagW.WadoParameters);
       int[] overrideList =
@@ -977,50 +1277,34 @@ private int downloadInFileCache(HttpResponse response, File tempFile) throws IOE
                 try (InputStream in = multipartReader.newPartInputStream()) {
                   readBytes[0] =
                       FileUtil.writeStream(
-                          new SeriesProgressMonitor(dicomSeries, in), tempFile, false);
+                          new CheckedInputStream(monitor(in), checksum), tempFile, false);
                 }
               };
 
-          if (response instanceof ClosableURLConnection urlConnection) {
-            Multipart.parseMultipartRelated(
-                urlConnection.getUrlConnection().getContentType(),
-                response.getInputStream(),
-                handler);
-          } else {
-            AuthResponse authResponse = (AuthResponse) response;
-            Multipart.parseMultipartRelated(
-                authResponse.getResponse().getHeader("Content-Type"), // NON-NLS
-                response.getInputStream(),
-                handler);
-          }
+          Multipart.parseMultipartRelated(
+              response.getHeaderField("Content-Type"), // NON-NLS
+              response.getInputStream(),
+              handler);
           bytesTransferred = readBytes[0];
         } else {
           bytesTransferred =
               FileUtil.writeStream(
-                  new DicomSeriesProgressMonitor(dicomSeries, response.getInputStream(), false),
-                  tempFile);
+                  new CheckedInputStream(monitor(response.getInputStream()), checksum), tempFile);
         }
       } else {
         bytesTransferred =
-            writFile(
-                new DicomSeriesProgressMonitor(dicomSeries, response.getInputStream(), false),
-                tempFile,
-                overrideList);
+            writFile(monitor(response.getInputStream()), tempFile, overrideList, checksum);
       }
 
       if (bytesTransferred == Integer.MIN_VALUE) {
         LOGGER.warn("Stop downloading unsupported TSUID, retry to download non compressed TSUID");
+        checksum.reset();
         try (InputStream stream2 = replaceToDefaultTSUID().getInputStream()) {
           if (overrideList == null) {
             bytesTransferred =
-                FileUtil.writeStream(
-                    new DicomSeriesProgressMonitor(dicomSeries, stream2, false), tempFile);
+                FileUtil.writeStream(new CheckedInputStream(monitor(stream2), checksum), tempFile);
           } else {
-            bytesTransferred =
-                writFile(
-                    new DicomSeriesProgressMonitor(dicomSeries, stream2, false),
-                    tempFile,
-                    overrideList);
+            bytesTransferred = writFile(monitor(stream2), tempFile, overrideList, checksum);
           }
         }
       }
@@ -1031,32 +1315,26 @@ private int downloadInFileCache(HttpResponse response, File tempFile) throws IOE
      * @param in the InputStream value
      * @param tempFile the file path
      * @param overrideList the list of the DICOM tags to modify when writing
+     * @param checksum the checksum updated with the bytes written in the file
      * @return bytes transferred. O = error, -1 = all bytes has been transferred, other = bytes
      *     transferred before interruption
      * @throws StreamIOException reading or writing error
      */
-    public int writFile(InputStream in, File tempFile, int[] overrideList)
+    public int writFile(InputStream in, File tempFile, int[] overrideList, Checksum checksum)
         throws StreamIOException {
       if (in == null || tempFile == null) {
         return 0;
       }
 
-      DicomInputStream dis = null;
-      DicomOutputStream dos = null;
-
-      try {
-        String tsuid;
-        Attributes dataset;
-        dis = new DicomInputStream(in);
-        try {
-          dis.setIncludeBulkData(IncludeBulkData.URI);
-          dataset = dis.readDataset();
-          tsuid = dis.getTransferSyntax();
-        } finally {
-          dis.close();
-        }
-
-        dos = new DicomOutputStream(tempFile);
+      try (DicomInputStream dis = new DicomInputStream(in);
+          DicomOutputStream dos =
+              new DicomOutputStream(
+                  new CheckedOutputStream(
+                      new BufferedOutputStream(new FileOutputStream(tempFile)), checksum),
+                  UID.ExplicitVRLittleEndian)) {
+        // Parse only the header, the pixel data is copied in a single pass without bulk data files
+        Attributes dataset = dis.readDatasetUntilPixelData();
+        String tsuid = dis.getTransferSyntax();
 
         if (overrideList != null) {
           MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
@@ -1077,6 +1355,12 @@ public int writFile(InputStream in, File tempFile, int[] overrideList)
           }
         }
         dos.writeDataset(dataset.createFileMetaInformation(tsuid), dataset);
+        if (dis.tag() == Tag.PixelData) {
+          // The output has the same transfer syntax: copy the pixel data (native or encapsulated)
+          // and the following attributes without parsing them
+          dos.writeHeader(Tag.PixelData, dis.vr(), dis.length());
+          dis.transferTo(dos);
+        }
         dos.finish();
         dos.flush();
         return -1;
@@ -1091,68 +1375,118 @@ public int writFile(InputStream in, File tempFile, int[] overrideList)
         FileUtil.delete(tempFile);
         LOGGER.error("Writing DICOM temp file", e);
         return 0;
-      } finally {
-        SafeClose.close(dos);
-        if (dis != null) {
-          List<File> blkFiles = dis.getBulkDataFiles();
-          if (blkFiles != null) {
-            for (File file : blkFiles) {
-              FileUtil.delete(file);
-            }
+      }
+    }
+  }
+
+  private void updateGroupMetaData(DicomMediaIO dicomReader) {
+    // Override the group (patient, study and series) by the dicom fields except the UID of
+    // the group
+    MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
+    dicomReader.writeMetaData(patient);
+    MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
+    dicomReader.writeMetaData(study);
+    dicomReader.writeMetaData(dicomSeries);
+    GuiExecutor.invokeAndWait(
+        () -> {
+          Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
+          if (thumb != null) {
+            thumb.repaint();
           }
-        }
+          dicomModel.firePropertyChange(
+              new ObservableEvent(
+                  ObservableEvent.BasicAction.UPDATE_PARENT, dicomModel, null, dicomSeries));
+        });
+  }
+
+  /**
+   * @param checksum the checksum computed while writing the file, or null when the file must not be
+   *     recorded in the download journal
+   */
+  private void addDicomInstance(
+      DicomMediaIO dicomReader, File file, boolean firstImage, Checksum checksum) {
+    Reading reading = dicomReader.getReadingStatus();
+    if (reading == Reading.READABLE) {
+      DownloadJournal j = journal;
+      // The files of the journal are only kept for resuming, delete them when the series is
+      // closed
+      if (file.getPath().startsWith(AppProperties.APP_TEMP_DIR.getPath())
+          || (j != null && j.getDirectory().equals(file.getParentFile()))) {
+        dicomReader.getFileCache().setOriginalTempFile(file);
+      }
+      if (j != null && checksum != null) {
+        j.addCompleted(
+            TagD.getTagValue(dicomReader, Tag.SOPInstanceUID, String.class),
+            file,
+            checksum.getValue());
       }
+      // Necessary to wait the runnable because the dicomSeries must be added to the
+      // dicomModel before reaching done() of SwingWorker
+      GuiExecutor.invokeAndWait(() -> updateUI(dicomReader, firstImage));
+    } else if (reading == Reading.ERROR) {
+      errors.incrementAndGet();
     }
+  }
 
-    private void updateUI(final DicomMediaIO reader, boolean firstImageToDisplay) {
-      Function<DicomSpecialElementFactory, DicomSpecialElement> buildSpecialElement =
-          factory -> factory.buildDicomSpecialElement(reader);
+  private void addDicomFile(File file, Checksum checksum) {
+    boolean firstImage =
+        dicomSeries.size(null) == 0 && seriesInitialized.compareAndSet(false, true);
+    DicomMediaIO dicomReader = new DicomMediaIO(file);
+    if (dicomReader.isReadableDicom() && firstImage) {
+      updateGroupMetaData(dicomReader);
+    }
+    addDicomInstance(dicomReader, file, firstImage, checksum);
+    incrementProgressBarValue();
+  }
 
-      DicomMediaIO.ResultContainer result = reader.getMediaElement(buildSpecialElement);
-      DicomImageElement[] medias = result.getImage();
-      if (medias != null) {
-        if (firstImageToDisplay) {
-          MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
-          if (patient != null) {
-            String oldDicomPtUID = (String) patient.getTagValue(TagW.PatientPseudoUID);
-            String dicomPtUID = (String) reader.getTagValue(TagW.PatientPseudoUID);
-            if (!Objects.equals(oldDicomPtUID, dicomPtUID)) {
-              // Fix when patientUID in xml have different patient name
-              dicomModel.mergePatientUID(oldDicomPtUID, dicomPtUID);
-            }
-          }
-          MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
-          if (study != null) {
-            String oldStudyUID = (String) study.getTagValue(TagD.get(Tag.StudyInstanceUID));
-            String studyUID = TagD.getTagValue(reader, Tag.StudyInstanceUID, String.class);
-            if (!Objects.equals(oldStudyUID, studyUID)) {
-              // Fix when StudyInstanceUID in xml have different study UID
-              dicomModel.mergeStudyUID(oldStudyUID, studyUID);
-            }
+  private void updateUI(final DicomMediaIO reader, boolean firstImageToDisplay) {
+    Function<DicomSpecialElementFactory, DicomSpecialElement> buildSpecialElement =
+        factory -> factory.buildDicomSpecialElement(reader);
+
+    DicomMediaIO.ResultContainer result = reader.getMediaElement(buildSpecialElement);
+    DicomImageElement[] medias = result.getImage();
+    if (medias != null) {
+      if (firstImageToDisplay) {
+        MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
+        if (patient != null) {
+          String oldDicomPtUID = (String) patient.getTagValue(TagW.PatientPseudoUID);
+          String dicomPtUID = (String) reader.getTagValue(TagW.PatientPseudoUID);
+          if (!Objects.equals(oldDicomPtUID, dicomPtUID)) {
+            // Fix when patientUID in xml have different patient name
+            dicomModel.mergePatientUID(oldDicomPtUID, dicomPtUID);
           }
         }
-
-        for (DicomImageElement media : medias) {
-          applyPresentationModel(media);
-          dicomModel.applySplittingRules(dicomSeries, media);
+        MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
+        if (study != null) {
+          String oldStudyUID = (String) study.getTagValue(TagD.get(Tag.StudyInstanceUID));
+          String studyUID = TagD.getTagValue(reader, Tag.StudyInstanceUID, String.class);
+          if (!Objects.equals(oldStudyUID, studyUID)) {
+            // Fix when StudyInstanceUID in xml have different study UID
+            dicomModel.mergeStudyUID(oldStudyUID, studyUID);
+          }
         }
       }
 
-      if (result.getSpecialElement() != null) {
-        dicomModel.applySplittingRules(dicomSeries, result.getSpecialElement());
+      for (DicomImageElement media : medias) {
+        applyPresentationModel(media);
+        dicomModel.applySplittingRules(dicomSeries, media);
       }
+    }
 
-      Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
-      if (thumb != null) {
-        thumb.repaint();
-      }
+    if (result.getSpecialElement() != null) {
+      dicomModel.applySplittingRules(dicomSeries, result.getSpecialElement());
+    }
 
-      MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
-      if (patient != null) {
-        PluginOpeningStrategy open = openingStrategy;
-        if (open != null) {
-          open.openViewerPlugin(patient, dicomModel, dicomSeries);
-        }
+    Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
+    if (thumb != null) {
+      thumb.repaint();
+    }
+
+    MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
+    if (patient != null) {
+      PluginOpeningStrategy open = openingStrategy;
+      if (open != null) {
+        open.openViewerPlugin(patient, dicomModel, dicomSeries);
       }
     }
   }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer.wado;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class DownloadConcurrencyTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  void test_initial_window_below_maximum() {
+    assertEquals(4, DownloadConcurrency.getInitialWindow(12, 8));
+    assertEquals(2, DownloadConcurrency.getInitialWindow(2, 8));
+    assertEquals(1, DownloadConcurrency.getInitialWindow(12, 1));
+    assertEquals(1, DownloadConcurrency.getInitialWindow(0, 8));
+  }
+
+  @Test
+  void test_additive_increase() throws InterruptedException {
+    DownloadConcurrency c = new DownloadConcurrency("test", 2, 8, 0);
+    // The window is fully used and the throughput improves
+    c.acquire();
+    c.acquire();
+    c.addBytes(1000);
+    c.release(true, SECOND);
+    assertEquals(3, c.getWindow());
+
+    c.acquire();
+    c.acquire();
+    c.addBytes(2000);
+    c.release(true, 2 * SECOND);
+    assertEquals(4, c.getWindow());
+
+    // The window is not fully used
+    c.addBytes(5000);
+    c.release(true, 3 * SECOND);
+    assertEquals(4, c.getWindow());
+
+    // The throughput does not improve
+    c.acquire();
+    c.acquire();
+    c.acquire();
+    c.addBytes(5000);
+    c.release(true, 4 * SECOND);
+    assertEquals(4, c.getWindow());
+  }
+
+  @Test
+  void test_multiplicative_decrease() {
+    DownloadConcurrency c = new DownloadConcurrency("test", 8, 8, 0);
+    c.onOverload(SECOND);
+    assertEquals(4, c.getWindow());
+    // The failures of the same period have the same cause
+    c.onOverload(SECOND + 1);
+    assertEquals(4, c.getWindow());
+    c.onOverload(2 * SECOND + 1);
+    assertEquals(2, c.getWindow());
+    c.onOverload(3 * SECOND + 1);
+    c.onOverload(4 * SECOND + 1);
+    assertEquals(1, c.getWindow());
+  }
+
+  @Test
+  void test_no_increase_with_errors() throws InterruptedException {
+    DownloadConcurrency c = new DownloadConcurrency("test", 2, 8, 0);
+    c.acquire();
+    c.acquire();
+    c.addBytes(1000);
+    c.release(false, SECOND);
+    assertEquals(2, c.getWindow());
+    assertEquals(1.0, c.getMetrics().errorRate());
+  }
+
+  @Test
+  void test_decrease_on_latency_and_floor_decay() {
+    DownloadConcurrency c = new DownloadConcurrency("test", 100, 200, 0);
+    c.addLatency(10 * MILLISECOND);
+    c.release(true, SECOND);
+    assertEquals(100, c.getWindow());
+
+    // The requests are queued by the server
+    c.addLatency(50 * MILLISECOND);
+    c.release(true, 2 * SECOND);
+    assertEquals(80, c.getWindow());
+
+    // The lowest latency rises to the new latency, the window stops decreasing
+    int window = 0;
+    for (int i = 3; i <= 60; i++) {
+      c.addLatency(50 * MILLISECOND);
+      c.release(true, i * SECOND);
+      if (i == 30) {
+        window = c.getWindow();
+      }
+    }
+    assertTrue(window > 1);
+    assertEquals(window, c.getWindow());
+  }
+}
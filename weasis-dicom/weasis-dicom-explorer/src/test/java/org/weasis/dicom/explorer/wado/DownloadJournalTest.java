@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer.wado;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DownloadJournalTest {
+  private static final String SERIES_UID = "1.2.3";
+
+  @TempDir Path root;
+
+  private static File writeInstance(DownloadJournal journal, String name, String content)
+      throws IOException {
+    File file = new File(journal.getDirectory(), name);
+    Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  private static long checksum(File file) throws IOException {
+    CRC32C crc = new CRC32C();
+    crc.update(Files.readAllBytes(file.toPath()));
+    return crc.getValue();
+  }
+
+  private File getJournalFile() {
+    return root.resolve(SERIES_UID).resolve("journal.txt").toFile(); // NON-NLS
+  }
+
+  @Test
+  void test_write_and_read() throws IOException {
+    DownloadJournal journal = DownloadJournal.open(root.toFile(), SERIES_UID);
+    assertNotNull(journal);
+    File file1 = writeInstance(journal, "a.dcm", "instance 1");
+    File file2 = writeInstance(journal, "b.dcm", "instance 2");
+    journal.addCompleted("1.2.3.1", file1, checksum(file1));
+    journal.addCompleted("1.2.3.2", file2, checksum(file2));
+    // A file outside of the journal folder is ignored
+    File other = root.resolve("c.dcm").toFile();
+    Files.writeString(other.toPath(), "instance 3", StandardCharsets.UTF_8);
+    journal.addCompleted("1.2.3.3", other, checksum(other));
+
+    DownloadJournal reopened = DownloadJournal.open(root.toFile(), SERIES_UID);
+    assertTrue(reopened.contains("1.2.3.1"));
+    assertTrue(reopened.contains("1.2.3.2"));
+    assertFalse(reopened.contains("1.2.3.3"));
+    assertEquals(file1, reopened.getCompletedFile("1.2.3.1"));
+    assertEquals(file2, reopened.getCompletedFile("1.2.3.2"));
+    assertNull(reopened.getCompletedFile("1.2.3.3"));
+  }
+
+  @Test
+  void test_incomplete_line_ignored() throws IOException {
+    DownloadJournal journal = DownloadJournal.open(root.toFile(), SERIES_UID);
+    File file = writeInstance(journal, "a.dcm", "instance 1");
+    journal.addCompleted("1.2.3.1", file, checksum(file));
+    // Crash while writing the next line
+    Files.writeString(
+        getJournalFile().toPath(),
+        "1.2.3.2\tb.dcm\t10",
+        StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+
+    DownloadJournal reopened = DownloadJournal.open(root.toFile(), SERIES_UID);
+    assertTrue(reopened.contains("1.2.3.1"));
+    assertFalse(reopened.contains("1.2.3.2"));
+    assertEquals(file, reopened.getCompletedFile("1.2.3.1"));
+  }
+
+  @Test
+  void test_truncated_file_rejected() throws IOException {
+    DownloadJournal journal = DownloadJournal.open(root.toFile(), SERIES_UID);
+    File file = writeInstance(journal, "a.dcm", "instance 1");
+    journal.addCompleted("1.2.3.1", file, checksum(file));
+    Files.writeString(file.toPath(), "instance", StandardCharsets.UTF_8);
+
+    DownloadJournal reopened = DownloadJournal.open(root.toFile(), SERIES_UID);
+    assertNull(reopened.getCompletedFile("1.2.3.1"));
+    assertFalse(reopened.contains("1.2.3.1"));
+    assertFalse(file.exists());
+  }
+
+  @Test
+  void test_modified_file_verified_by_checksum() throws IOException {
+    DownloadJournal journal = DownloadJournal.open(root.toFile(), SERIES_UID);
+    File file1 = writeInstance(journal, "a.dcm", "instance 1");
+    File file2 = writeInstance(journal, "b.dcm", "instance 2");
+    journal.addCompleted("1.2.3.1", file1, checksum(file1));
+    journal.addCompleted("1.2.3.2", file2, checksum(file2));
+    // Same content, only the modification time has changed
+    assertTrue(file1.setLastModified(file1.lastModified() - 10_000));
+    // Different content of the same size
+    Files.writeString(file2.toPath(), "instance 9", StandardCharsets.UTF_8);
+    assertTrue(file2.setLastModified(file2.lastModified() - 10_000));
+
+    DownloadJournal reopened = DownloadJournal.open(root.toFile(), SERIES_UID);
+    assertEquals(file1, reopened.getCompletedFile("1.2.3.1"));
+    assertNull(reopened.getCompletedFile("1.2.3.2"));
+    assertFalse(file2.exists());
+  }
+
+  @Test
+  void test_delete() throws IOException {
+    DownloadJournal journal = DownloadJournal.open(root.toFile(), SERIES_UID);
+    File file = writeInstance(journal, "a.dcm", "instance 1");
+    journal.addCompleted("1.2.3.1", file, checksum(file));
+    assertTrue(getJournalFile().exists());
+
+    journal.delete();
+    assertFalse(getJournalFile().exists());
+    assertFalse(journal.contains("1.2.3.1"));
+    // Nothing is recorded after the deletion
+    journal.addCompleted("1.2.3.1", file, checksum(file));
+    assertFalse(getJournalFile().exists());
+    assertFalse(DownloadJournal.open(root.toFile(), SERIES_UID).contains("1.2.3.1"));
+  }
+
+  @Test
+  void test_clean_only_old_folders() throws IOException {
+    DownloadJournal journal = DownloadJournal.open(root.toFile(), SERIES_UID);
+    File file = writeInstance(journal, "a.dcm", "instance 1");
+    journal.addCompleted("1.2.3.1", file, checksum(file));
+    // Folder without journal of a series being downloaded by another instance
+    File partial = root.resolve("1.2.4").resolve("1.2.4.1.part").toFile(); // NON-NLS
+    assertTrue(partial.getParentFile().mkdirs());
+    Files.writeString(partial.toPath(), "inst", StandardCharsets.UTF_8);
+    // Folder not modified for a long time
+    File old = root.resolve("1.2.5").toFile(); // NON-NLS
+    assertTrue(old.mkdirs());
+    assertTrue(old.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8)));
+
+    DownloadJournal.cleanDirectory(root.toFile());
+    assertTrue(getJournalFile().exists());
+    assertTrue(partial.exists());
+    assertFalse(old.exists());
+  }
+}
@@ -13,7 +13,6 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import org.dcm4che3.data.Attributes;
@@ -70,7 +69,7 @@ public static void applyMipParameters(
       Boolean reverse = (Boolean) view.getActionValue(ActionW.INVERSE_STACK.cmd());
       Comparator sortFilter = (reverse != null && reverse) ? sort.getReversOrderComparator() : sort;
       Filter filter = (Filter) view.getActionValue(ActionW.FILTERED_SERIES.cmd());
-      Iterable<DicomImageElement> medias = series.copyOfMedias(filter, sortFilter);
+      List<DicomImageElement> medias = series.copyOfMedias(filter, sortFilter);
 
       int curImg = extend - 1;
       Optional<SliderCineListener> sequence =
@@ -89,31 +88,23 @@ public static void applyMipParameters(
       adaptWindowLevel(view, cpTags);
       String seriesUID = UIDUtils.createUID();
 
+      // The windows of the full series slide along the stack, the previous window is reused
+      SlidingProjection projection =
+          fullSeries ? new SlidingProjection(mipType, medias, 2 * extend + 1) : null;
       for (int index = minImg; index <= maxImg; index++) {
-        Iterator<DicomImageElement> iter = medias.iterator();
+        int startIndex = Math.max(0, index - extend);
+        int stopIndex = Math.min(index + extend, medias.size() - 1);
         final List<ImageElement> sources = new ArrayList<>();
-        int startIndex = index - extend;
-        if (startIndex < 0) {
-          startIndex = 0;
-        }
-        int stopIndex = index + extend;
-        int k = 0;
-        while (iter.hasNext()) {
-          DicomImageElement dcm = iter.next();
-          if (k >= startIndex) {
-            sources.add(dcm);
-          }
-
-          if (k >= stopIndex) {
-            break;
-          }
-          k++;
+        if (startIndex < stopIndex) {
+          sources.addAll(medias.subList(startIndex, stopIndex + 1));
         }
 
-        if (sources.size() > 1) {
+        if (sources.size() <= 1) {
+          curImage = null;
+        } else if (projection == null) {
           curImage = addCollectionOperation(mipType, sources);
         } else {
-          curImage = null;
+          curImage = projection.compute(startIndex, stopIndex);
         }
 
         if (curImage != null) {
@@ -137,6 +128,9 @@ public static void applyMipParameters(
             LOGGER.error("Writing MIP", e);
           }
           if (raw == null) {
+            if (projection != null) {
+              projection.release();
+            }
             return;
           }
           RawImageIO rawIO = new RawImageIO(raw, null);
@@ -187,6 +181,9 @@ public static void applyMipParameters(
           dicoms.add(DerivedStack.buildDicomImageElement(rawIO));
         }
       }
+      if (projection != null) {
+        projection.release();
+      }
     }
   }
 
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.viewer2d.mip;
+
+import java.util.List;
+import java.util.Objects;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.dicom.viewer2d.mip.MipView.Type;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Projection of a window of consecutive images sliding along a stack. The windows are requested in
+ * increasing order and the work done for the previous window is reused:
+ *
+ * <ul>
+ *   <li>the mean is a running sum where the images entering the window are added and the images
+ *       leaving the window are subtracted
+ *   <li>the minimum and the maximum follow the van Herk/Gil-Werman algorithm: the stack is split in
+ *       blocks of the window size, with the extremum accumulated from the end of the block of the
+ *       first image and from the start of the block of the last image, so a window is the
+ *       combination of two images
+ * </ul>
+ *
+ * <p>Each window costs a constant number of operations whatever the thickness. The images that do
+ * not have the size and the type of the first image of the stack are ignored.
+ */
+final class SlidingProjection {
+
+  private final Type type;
+  private final List<? extends ImageElement> images;
+  private final int blockSize;
+
+  private int width = -1;
+  private int height;
+  private int cvType;
+
+  // Running sum of the mean
+  private Mat sum;
+  private int sumStart;
+  private int sumEnd = -1;
+  private int count;
+
+  // Extremums from the end of the block of the first image and from the start of the next block
+  private final Mat[] suffix;
+  private int suffixBlock = -1;
+  private Mat prefix;
+  private int prefixBlock = -1;
+  private int prefixEnd = -1;
+
+  /**
+   * @param type the projection type, the maximum when null
+   * @param images the sorted images of the stack
+   * @param windowSize the maximum number of images of a window
+   */
+  SlidingProjection(Type type, List<? extends ImageElement> images, int windowSize) {
+    this.type = type;
+    this.images = Objects.requireNonNull(images);
+    this.blockSize = Math.max(1, windowSize);
+    this.suffix = new Mat[blockSize];
+  }
+
+  /**
+   * @param start the index of the first image of the window
+   * @param end the index of the last image of the window (inclusive)
+   * @return the projection of the window or null if no image can be projected
+   */
+  PlanarImage compute(int start, int end) {
+    if (start < 0 || end >= images.size() || start > end) {
+      return null;
+    }
+    if (type == Type.MEAN) {
+      return computeMean(start, end);
+    }
+    return computeExtremum(start, end);
+  }
+
+  void release() {
+    releaseSum();
+    releaseSuffix();
+    releasePrefix();
+  }
+
+  private PlanarImage computeMean(int start, int end) {
+    if (start < sumStart || end < sumEnd) {
+      releaseSum();
+    }
+    if (sum == null) {
+      sumStart = start;
+      sumEnd = start - 1;
+    }
+    for (int i = Math.max(sumEnd + 1, sumStart); i <= end; i++) {
+      accumulate(i, true);
+    }
+    sumEnd = end;
+    for (int i = sumStart; i < start; i++) {
+      accumulate(i, false);
+    }
+    sumStart = start;
+
+    if (count == 0) {
+      return null;
+    }
+    ImageCV dstImg = new ImageCV();
+    sum.convertTo(dstImg, cvType, 1.0 / count);
+    return dstImg;
+  }
+
+  private void accumulate(int index, boolean add) {
+    Mat mat = getMat(index);
+    if (mat == null) {
+      return;
+    }
+    int sumType = CvType.makeType(CvType.CV_64F, CvType.channels(cvType));
+    if (sum == null) {
+      sum = new Mat(height, width, sumType, Scalar.all(0));
+    }
+    Mat floatImage = new Mat();
+    mat.convertTo(floatImage, sumType);
+    if (add) {
+      Core.add(sum, floatImage, sum);
+      count++;
+    } else {
+      Core.subtract(sum, floatImage, sum);
+      count--;
+    }
+    floatImage.release();
+  }
+
+  private PlanarImage computeExtremum(int start, int end) {
+    int block = start / blockSize;
+    int blockEnd = Math.min((block + 1) * blockSize, images.size()) - 1;
+    if (end - start >= blockSize || end < blockEnd) {
+      // Not a sliding window, compute it directly
+      Mat result = null;
+      for (int i = start; i <= end; i++) {
+        Mat next = combine(result, getMat(i));
+        releaseMat(result);
+        result = next;
+      }
+      return toImage(result);
+    }
+
+    Mat first = getSuffix(block)[start - block * blockSize];
+    if (end == blockEnd) {
+      return toImage(first == null ? null : first.clone());
+    }
+    return toImage(combine(first, getPrefix(end)));
+  }
+
+  private Mat[] getSuffix(int block) {
+    if (suffixBlock != block) {
+      releaseSuffix();
+      int first = block * blockSize;
+      int last = Math.min(first + blockSize, images.size()) - 1;
+      for (int i = last; i >= first; i--) {
+        suffix[i - first] = combine(getMat(i), i == last ? null : suffix[i - first + 1]);
+      }
+      suffixBlock = block;
+    }
+    return suffix;
+  }
+
+  private Mat getPrefix(int end) {
+    int block = end / blockSize;
+    if (prefixBlock != block || prefixEnd > end) {
+      releasePrefix();
+      prefixBlock = block;
+      prefixEnd = block * blockSize - 1;
+    }
+    for (int i = prefixEnd + 1; i <= end; i++) {
+      Mat mat = getMat(i);
+      if (mat != null) {
+        if (prefix == null) {
+          prefix = mat.clone();
+        } else {
+          applyExtremum(prefix, mat, prefix);
+        }
+      }
+    }
+    prefixEnd = end;
+    return prefix;
+  }
+
+  /**
+   * @return a new image with the extremum of the two images or null if both are null
+   */
+  private Mat combine(Mat a, Mat b) {
+    if (a == null) {
+      return b == null ? null : b.clone();
+    }
+    if (b == null) {
+      return a.clone();
+    }
+    Mat dst = new Mat();
+    applyExtremum(a, b, dst);
+    return dst;
+  }
+
+  private void applyExtremum(Mat a, Mat b, Mat dst) {
+    if (type == Type.MIN) {
+      Core.min(a, b, dst);
+    } else {
+      Core.max(a, b, dst);
+    }
+  }
+
+  private Mat getMat(int index) {
+    if (width < 0) {
+      PlanarImage ref = images.getFirst().getImage(null, false);
+      if (ref == null) {
+        return null;
+      }
+      width = ref.width();
+      height = ref.height();
+      cvType = ref.type();
+    }
+    PlanarImage image = images.get(index).getImage(null, false);
+    if (image instanceof Mat mat
+        && image.width() == width
+        && image.height() == height
+        && image.type() == cvType) {
+      return mat;
+    }
+    return null;
+  }
+
+  private static PlanarImage toImage(Mat mat) {
+    return mat == null ? null : ImageCV.toImageCV(mat);
+  }
+
+  private static void releaseMat(Mat mat) {
+    if (mat != null) {
+      mat.release();
+    }
+  }
+
+  private void releaseSum() {
+    releaseMat(sum);
+    sum = null;
+    count = 0;
+  }
+
+  private void releaseSuffix() {
+    for (int i = 0; i < suffix.length; i++) {
+      releaseMat(suffix[i]);
+      suffix[i] = null;
+    }
+    suffixBlock = -1;
+  }
+
+  private void releasePrefix() {
+    releaseMat(prefix);
+    prefix = null;
+    prefixBlock = -1;
+    prefixEnd = -1;
+  }
+}
@@ -100,6 +100,8 @@ public void generate(BuildContext context) {
     try (ForkJoinPool pool = new ForkJoinPool()) {
       pool.invoke(new CreateSeriesTask(context, uidsRef, AXIAL, SAGITTAL, CORONAL));
     }
+    // Do not delay the display of the views
+    VolumeCache.writeLater(volume);
 
     //    ArcBallController arcBall =
     //        new ArcBallController(controller) {
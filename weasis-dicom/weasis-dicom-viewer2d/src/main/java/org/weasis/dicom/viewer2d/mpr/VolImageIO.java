@@ -14,10 +14,8 @@
 import java.lang.ref.Reference;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -35,14 +33,9 @@
 import org.joml.Matrix4d;
 import org.joml.Quaterniond;
 import org.joml.Vector3d;
-import org.opencv.core.Core;
-import org.opencv.core.CvType;
-import org.opencv.core.Mat;
-import org.opencv.core.Scalar;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
-import org.weasis.core.api.image.cv.CvUtil;
 import org.weasis.core.api.media.data.Codec;
 import org.weasis.core.api.media.data.FileCache;
 import org.weasis.core.api.media.data.MediaElement;
@@ -59,7 +52,6 @@
 import org.weasis.dicom.codec.utils.DicomMediaUtils;
 import org.weasis.dicom.viewer2d.mip.MipView.Type;
 import org.weasis.dicom.viewer2d.mpr.MprView.SliceOrientation;
-import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.PlanarImage;
 
 public class VolImageIO implements DcmMediaReader {
@@ -120,81 +112,12 @@ public void writeMetaData(MediaSeriesGroup group) {
 
   @Override
   public PlanarImage getImageFragment(MediaElement media) throws Exception {
-    double position = mprAxis.getPositionAlongAxis();
     Vector3d volumeCenter = mprAxis.getMprView().mprController.getVolumeCrossHair();
-    int extend = mprAxis.getThicknessExtension();
-    if (extend > 0 && !mprAxis.isAdjusting()) {
-      List<PlanarImage> sources = new ArrayList<>();
-      for (int i = -extend; i <= extend; i++) {
-        PlanarImage slice;
-        if (i == 0) {
-          slice = getSlice(volumeCenter);
-        } else {
-          double positionIndex = position + i + volume.getSliceSize() / 2.0;
-          Vector3d centerIndex = new Vector3d(volumeCenter);
-          mprAxis.changePositionAlongAxis(centerIndex, positionIndex);
-          slice = volume.getVolumeSlice(mprAxis, centerIndex);
-        }
-        if (slice != null) {
-          sources.add(slice);
-        }
-      }
-
-      PlanarImage image = mipStack(sources, volumeCenter);
-      image.setReleasedAfterProcessing(false);
-      return image;
-    }
     PlanarImage image = getSlice(volumeCenter);
     image.setReleasedAfterProcessing(false);
     return image;
   }
 
-  private PlanarImage mipStack(List<PlanarImage> sources, Vector3d volumeCenter) {
-    if (sources.size() > 1) {
-      Type mipType = (Type) mprAxis.getMprView().mprController.getMipTypeOption().getSelectedItem();
-      if (mipType == Type.MEAN) {
-        return meanStack(sources);
-      } else {
-        return minMaxStack(sources, mipType);
-      }
-    }
-    return getSlice(volumeCenter);
-  }
-
-  private static PlanarImage minMaxStack(List<PlanarImage> sources, Type mipType) {
-    PlanarImage firstImg = sources.getFirst();
-    ImageCV dstImg = new ImageCV();
-    firstImg.toMat().copyTo(dstImg);
-
-    for (int i = 1; i < sources.size(); i++) {
-      PlanarImage image = sources.get(i);
-      if (image instanceof Mat mat && image.width() == dstImg.width()) {
-        if (mipType == Type.MIN) {
-          Core.min(dstImg, mat, dstImg);
-        } else if (mipType == Type.MAX) {
-          Core.max(dstImg, mat, dstImg);
-        }
-      }
-    }
-    return dstImg;
-  }
-
-  public static ImageCV meanStack(List<PlanarImage> sources) {
-    PlanarImage firstImg = sources.getFirst();
-    int type = firstImg.type();
-    Mat mean = new Mat(firstImg.height(), firstImg.width(), CvType.CV_32F);
-    firstImg.toMat().convertTo(mean, CvType.CV_32F);
-    int size = sources.size();
-    for (int i = 1; i < size; i++) {
-      PlanarImage image = sources.get(i);
-      CvUtil.accumulateFloatStack(image, firstImg, mean);
-    }
-    ImageCV dstImg = new ImageCV();
-    Core.divide(mean, new Scalar(size), mean);
-    mean.convertTo(dstImg, type);
-    return dstImg;
-  }
-
   public Volume<?> getVolume() {
     return volume;
   }
@@ -206,7 +129,14 @@ public PlanarImage getSlice(Vector3d volumeCenter) {
     }
     HEADER_CACHE.remove(this);
 
-    PlanarImage curImage = volume.getVolumeSlice(mprAxis, volumeCenter);
+    int extend = mprAxis.getThicknessExtension();
+    PlanarImage curImage;
+    if (extend > 0 && !mprAxis.isAdjusting()) {
+      Type mipType = (Type) mprAxis.getMprView().mprController.getMipTypeOption().getSelectedItem();
+      curImage = volume.getVolumeSlab(mprAxis, volumeCenter, extend, mipType);
+    } else {
+      curImage = volume.getVolumeSlice(mprAxis, volumeCenter);
+    }
     if (curImage == null) {
       return null;
     }
@@ -236,7 +166,6 @@ public PlanarImage getSlice(Vector3d volumeCenter) {
     // Tags with same values for all the Series
     rawIO.setTag(TagD.get(Tag.Columns), curImage.width());
     rawIO.setTag(TagD.get(Tag.Rows), curImage.height());
-    int extend = mprAxis.getThicknessExtension();
     double thickness = extend > 0 && !mprAxis.isAdjusting() ? extend * minRatio : minRatio;
     rawIO.setTag(TagD.get(Tag.SliceThickness), thickness);
     rawIO.setTag(TagD.get(Tag.PixelSpacing), pixSpacing);
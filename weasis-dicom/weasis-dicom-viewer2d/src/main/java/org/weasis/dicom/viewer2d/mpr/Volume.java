@@ -11,32 +11,62 @@
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.nio.MappedByteBuffer;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
 import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.RecursiveAction;
-import java.util.function.BiConsumer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.swing.JProgressBar;
 import javax.swing.SwingUtilities;
 import org.joml.Matrix3d;
+import org.joml.Matrix4d;
 import org.joml.Quaterniond;
 import org.joml.Vector3d;
 import org.joml.Vector3i;
 import org.opencv.core.CvType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.image.cv.CvUtil;
+import org.weasis.core.api.media.data.DecodeScheduler;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.ui.editor.image.ViewerPlugin;
 import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.MathUtil;
 import org.weasis.dicom.codec.DicomImageElement;
 import org.weasis.dicom.codec.geometry.GeometryOfSlice;
+import org.weasis.dicom.viewer2d.mip.MipView;
+import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.PlanarImage;
 
+/**
+ * Volume of voxels built from a stack of images.
+ *
+ * <p>The voxels are stored in a single contiguous block of native memory in z-major order (the
+ * rows of an axial plane are contiguous), or in a memory-mapped temporary file when the native
+ * memory cannot be allocated. The voxels are read with primitive accessors, without boxing.
+ *
+ * @param <T> the type of the voxel values
+ */
 public abstract class Volume<T extends Number> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(Volume.class);
+
+  // Number of voxel samples interpolated by the same task
+  private static final int SLICE_TASK_PIXELS = 16384;
 
   protected final Vector3d translation;
   protected final Quaterniond rotation;
@@ -47,10 +77,20 @@
   protected double maxValue;
   protected final OriginalStack stack;
   protected final int cvType;
-  protected int byteDepth = 1;
-  protected MappedByteBuffer mappedBuffer;
+  protected final boolean signed;
+  protected final int byteDepth;
+  protected MemorySegment data;
   protected File dataFile;
+  private Arena arena;
   protected final JProgressBar progressBar;
+  private final AtomicInteger completedSlices = new AtomicInteger();
+  private final AtomicBoolean progressPending = new AtomicBoolean();
+  private final AtomicBoolean missingSlices = new AtomicBoolean();
+  // Written in the cache once, when the volume has been built from its stack
+  private final AtomicBoolean cacheWritePending = new AtomicBoolean();
+  // Guards the data while it is written in the cache by another thread
+  private final ReentrantLock dataLock = new ReentrantLock();
+  private final AtomicBoolean dataRemoving = new AtomicBoolean();
 
   Volume(int sizeX, int sizeY, int sizeZ, JProgressBar progressBar) {
     this(sizeX, sizeY, sizeZ, true, progressBar);
@@ -61,13 +101,15 @@
     this.translation = new Vector3d(0, 0, 0);
     this.rotation = new Quaterniond();
     this.size = new Vector3i(sizeX, sizeY, sizeZ);
-    createData(size.x, size.y, size.z);
     this.pixelRatio = new Vector3d(1.0, 1.0, 1.0);
     this.negativeDirection = false;
     this.minValue = -Double.MAX_VALUE;
     this.maxValue = Double.MAX_VALUE;
     this.stack = null;
     this.cvType = initCVType(isSigned);
+    this.signed = isSigned;
+    this.byteDepth = CvType.ELEM_SIZE(cvType);
+    createData(size.x, size.y, size.z);
   }
 
   Volume(OriginalStack stack, JProgressBar progressBar) {
@@ -79,9 +121,15 @@
     this.negativeDirection = false;
     this.stack = stack;
     int depth = stack.getFirstImage().getImage().depth();
-    this.cvType =
-        initCVType(depth == CvType.CV_8S || depth == CvType.CV_16S || depth == CvType.CV_32S);
+    this.signed = depth == CvType.CV_8S || depth == CvType.CV_16S || depth == CvType.CV_32S;
+    this.cvType = initCVType(signed);
     this.byteDepth = CvType.ELEM_SIZE(cvType); // FIXME: color image
+    if (VolumeCache.read(this)) {
+      if (progressBar != null) {
+        SwingUtilities.invokeLater(() -> progressBar.setValue(progressBar.getMaximum()));
+      }
+      return;
+    }
     switch (stack.getStackOrientation()) {
       case AXIAL:
         copyFromAxial();
@@ -93,6 +141,7 @@
         copyFromSagittalTaAxial();
         break;
     }
+    cacheWritePending.set(!missingSlices.get());
   }
 
   private int initCVType(boolean isSigned) {
@@ -109,35 +158,75 @@ private int initCVType(boolean isSigned) {
   }
 
   private void createData(int sizeX, int sizeY, int sizeZ) {
+    removeData();
+    long byteSize = (long) sizeX * sizeY * sizeZ * byteDepth;
     try {
-      createDataArray(sizeX, sizeY, sizeZ);
+      createDataSegment(byteSize);
     } catch (OutOfMemoryError e) {
       CvUtil.runGarbageCollectorAndWait(100);
       try {
-        createDataArray(sizeX, sizeY, sizeZ);
+        createDataSegment(byteSize);
       } catch (OutOfMemoryError ex) {
-        createDataFile(sizeX, sizeY, sizeZ);
+        createDataFile(byteSize);
       }
     }
   }
 
-  private void createDataFile(int sizeX, int sizeY, int sizeZ) {
+  private void createDataSegment(long byteSize) {
+    Arena a = Arena.ofShared();
+    try {
+      // Native memory initialized to zero
+      this.data = a.allocate(Math.max(1L, byteSize), byteDepth);
+      this.arena = a;
+    } catch (OutOfMemoryError e) {
+      a.close();
+      throw e;
+    }
+  }
+
+  private void createDataFile(long byteSize) {
+    Arena a = Arena.ofShared();
     try {
-      removeData();
       dataFile = File.createTempFile("volume_data", ".tmp", AppProperties.FILE_CACHE_DIR);
-      long fileSize;
-      FileChannel fileChannel;
-      try (RandomAccessFile raf = new RandomAccessFile(dataFile, "rw")) {
-        fileSize = (long) sizeX * sizeY * sizeZ * byteDepth;
-        raf.setLength(fileSize);
-        fileChannel = raf.getChannel();
-        this.mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+      try (FileChannel channel =
+          FileChannel.open(
+              dataFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        // The mapping remains valid after closing the channel, until the arena is closed
+        this.data = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(1L, byteSize), a);
+        this.arena = a;
       }
     } catch (IOException ioException) {
+      a.close();
       throw new RuntimeException("Failed to create a 3D volume file!", ioException);
     }
   }
 
+  /**
+   * Maps the voxels from a file. The mapping is read-only, the volume is never modified once built.
+   *
+   * @param file the file containing the voxels in the z-major order
+   * @param position the position of the first voxel in the file
+   */
+  void mapData(Path file, long position) throws IOException {
+    removeData();
+    long byteSize = (long) size.x * size.y * size.z * byteDepth;
+    Arena a = Arena.ofShared();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      this.data = channel.map(FileChannel.MapMode.READ_ONLY, position, byteSize, a);
+      this.arena = a;
+    } catch (IOException | RuntimeException e) {
+      a.close();
+      throw e;
+    }
+  }
+
+  /**
+   * @return the index of the voxel in the z-major order
+   */
+  protected final long index(int x, int y, int z) {
+    return ((long) z * size.y + y) * size.x + x;
+  }
+
   protected void copyFromAxial() {
     List<DicomImageElement> medias = new ArrayList<>(stack.getSourceStack());
     Collections.reverse(medias);
@@ -149,18 +238,62 @@ protected void copyFromAxial() {
     coyImageToVolume(medias);
   }
 
+  /**
+   * Copies the images into the volume. The slices are decoded in parallel by the decoding threads
+   * and copied as soon as they are available, in the order of the stack with a bounded number of
+   * slices in progress.
+   */
   private void coyImageToVolume(List<DicomImageElement> dicomImages) {
     createData(size.x, size.y, size.z);
     adaptPlaneOrientation();
 
+    List<Callable<Void>> tasks = new ArrayList<>(dicomImages.size());
+    for (int i = 0; i < dicomImages.size(); i++) {
+      int z = i;
+      DicomImageElement dcm = dicomImages.get(z);
+      tasks.add(
+          () -> {
+            // The volume is displayed when complete, and a 2D view cannot cancel a display request
+            PlanarImage image = dcm.getImage(null, true, Priority.DISPLAY);
+            if (image == null) {
+              LOGGER.warn("Cannot read the slice {} of the volume", z);
+              missingSlices.set(true);
+            } else {
+              copyFrom(image, z, getAffineTransform(dcm));
+            }
+            updateProgressBar();
+            return null;
+          });
+    }
+
+    int nbThreads = DecodeScheduler.getInstance().getThreadNumber();
+    ExecutorService executor =
+        ThreadUtil.buildNewFixedThreadExecutor(nbThreads, "Volume Builder"); // NON-NLS
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Building the volume has been interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException("Cannot build the volume", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // The min and max values are computed when the images are loaded
     double min = Double.MAX_VALUE;
     double max = -Double.MAX_VALUE;
-    for (int z = 0; z < dicomImages.size(); z++) {
-      DicomImageElement dcm = dicomImages.get(z);
+    for (DicomImageElement dcm : dicomImages) {
       min = Math.min(dcm.getPixelMin(), min);
       max = Math.max(dcm.getPixelMax(), max);
-      Matrix3d transform = getAffineTransform(dcm);
-      copyFrom(dcm.getImage(), z, transform);
     }
     this.minValue = min;
     this.maxValue = max;
@@ -261,12 +394,57 @@ protected Vector3i transformPoint(int x, int y, int z, Matrix3d transform) {
   }
 
   public void removeData() {
-    if (mappedBuffer != null) {
-      mappedBuffer.clear();
+    // Stop writing the cache file before releasing the data
+    dataRemoving.set(true);
+    dataLock.lock();
+    try {
+      data = null;
+      if (arena != null) {
+        // Free the native memory or unmap the file
+        arena.close();
+        arena = null;
+      }
+      if (dataFile != null) {
+        FileUtil.delete(dataFile);
+        dataFile = null;
+      }
+    } finally {
+      dataRemoving.set(false);
+      dataLock.unlock();
     }
-    if (dataFile != null) {
-      FileUtil.delete(dataFile);
+  }
+
+  /**
+   * @return true only the first time, when the volume has been built and must be written in the
+   *     cache
+   */
+  boolean takeCacheWrite() {
+    return cacheWritePending.compareAndSet(true, false);
+  }
+
+  /**
+   * Locks the data so it cannot be removed while it is read by another thread.
+   *
+   * @return false if the data has already been removed
+   */
+  boolean lockData() {
+    dataLock.lock();
+    if (data == null) {
+      dataLock.unlock();
+      return false;
     }
+    return true;
+  }
+
+  void unlockData() {
+    dataLock.unlock();
+  }
+
+  /**
+   * @return true when the data is being removed, a thread holding the lock must release it
+   */
+  boolean isDataRemoving() {
+    return dataRemoving.get();
   }
 
   protected void copyFromCoronalToAxial() {
@@ -291,51 +469,407 @@ protected void copyFromSagittalTaAxial() {
 
   protected abstract void copyFrom(PlanarImage image, int z, Matrix3d transform);
 
-  public abstract PlanarImage getVolumeSlice(MprAxis mprAxis, Vector3d volumeCenter);
+  /**
+   * Copies the image without interpolation when its axes are parallel to the axes of the volume.
+   * Each row of the image is then a line of voxels, copied in bulk when it is along the x-axis of
+   * the volume and with a constant stride otherwise.
+   *
+   * @param pixels the pixels of the image in row order
+   * @return true if the image has been copied
+   */
+  protected boolean copyAlignedImage(
+      MemorySegment pixels, int width, int height, int z, Matrix3d transform) {
+    Vector3i o = toVolumePoint(0, 0, z, transform);
+    Vector3i u = toVolumePoint(1, 0, z, transform).sub(o);
+    Vector3i v = toVolumePoint(0, 1, z, transform).sub(o);
+    if (!isUnitAxis(u) || !isUnitAxis(v)) {
+      return false;
+    }
+    // The rounded positions are the linear ones at the corners, so they are everywhere
+    int[][] corners = {{width - 1, 0}, {0, height - 1}, {width - 1, height - 1}};
+    for (int[] c : corners) {
+      Vector3i p = toVolumePoint(c[0], c[1], z, transform);
+      if (p.x != o.x + c[0] * u.x + c[1] * v.x
+          || p.y != o.y + c[0] * u.y + c[1] * v.y
+          || p.z != o.z + c[0] * u.z + c[1] * v.z) {
+        return false;
+      }
+    }
+
+    // Offset in voxels of one step along a row of the image
+    long step = u.x + (long) u.y * size.x + (long) u.z * size.x * size.y;
+    for (int y = 0; y < height; y++) {
+      int sx = o.x + y * v.x;
+      int sy = o.y + y * v.y;
+      int sz = o.z + y * v.z;
+      Span span = getInsideSpan(sx, sy, sz, u, width);
+      if (span == null) {
+        continue;
+      }
+      long src = (long) y * width + span.start();
+      long dst = index(sx + span.start() * u.x, sy + span.start() * u.y, sz + span.start() * u.z);
+      if (step == 1) {
+        MemorySegment.copy(
+            pixels, src * byteDepth, data, dst * byteDepth, (long) span.length() * byteDepth);
+      } else {
+        for (int x = span.start(); x < span.end(); x++, src++, dst += step) {
+          MemorySegment.copy(pixels, src * byteDepth, data, dst * byteDepth, byteDepth);
+        }
+      }
+    }
+    return true;
+  }
+
+  private Vector3i toVolumePoint(int x, int y, int z, Matrix3d transform) {
+    return transform == null ? new Vector3i(x, y, z) : transformPoint(x, y, z, transform);
+  }
+
+  public PlanarImage getVolumeSlice(MprAxis mprAxis, Vector3d volumeCenter) {
+    if (mprAxis == null) {
+      return null;
+    }
+    int sliceImageSize = getSliceSize();
+    Matrix4d combinedTransform = getSliceTransformation(mprAxis, volumeCenter);
+    mprAxis.getTransformation().set(combinedTransform);
+
+    MemorySegment raster = createSliceRaster(sliceImageSize);
+    SliceGrid grid = toSliceGrid(combinedTransform);
+    if (!copyAlignedSlice(grid, sliceImageSize, raster)) {
+      ForkJoinPool.commonPool()
+          .invoke(new VolumeSliceTask(0, sliceImageSize, sliceImageSize, grid, null, raster));
+    }
+    return toImage(raster, sliceImageSize);
+  }
+
+  /**
+   * Builds a thick slab by projecting for each pixel of the slice a ray along the normal of the
+   * slab. The voxels are sampled directly in the volume at the positions of the slices of the slab,
+   * so the intermediate slices are never built.
+   *
+   * @param mprAxis the axis of the slice
+   * @param volumeCenter the center of the slab in the volume
+   * @param extend the number of slices on each side of the center
+   * @param type the projection type (minimum, mean or maximum)
+   * @return the projected image
+   */
+  public PlanarImage getVolumeSlab(
+      MprAxis mprAxis, Vector3d volumeCenter, int extend, MipView.Type type) {
+    if (mprAxis == null) {
+      return null;
+    }
+    if (extend <= 0 || type == null || type == MipView.Type.NONE) {
+      return getVolumeSlice(mprAxis, volumeCenter);
+    }
+    int sliceImageSize = getSliceSize();
+    // Step between two consecutive slices along the axis, in voxel indexes
+    double position = mprAxis.getPositionAlongAxis() + sliceImageSize / 2.0;
+    Vector3d current = new Vector3d(volumeCenter);
+    mprAxis.changePositionAlongAxis(current, position);
+    Vector3d next = new Vector3d(volumeCenter);
+    mprAxis.changePositionAlongAxis(next, position + 1);
+    Vector3d normal =
+        toSliceGrid(getSliceTransformation(mprAxis, next))
+            .origin()
+            .sub(toSliceGrid(getSliceTransformation(mprAxis, current)).origin());
+
+    Matrix4d combinedTransform = getSliceTransformation(mprAxis, volumeCenter);
+    mprAxis.getTransformation().set(combinedTransform);
+
+    MemorySegment raster = createRaster(sliceImageSize * sliceImageSize);
+    Slab slab =
+        new Slab(
+            normal,
+            extend,
+            type,
+            getPhotometricMinValue(),
+            CvType.depth(getCVType()) < CvType.CV_32F);
+    ForkJoinPool.commonPool()
+        .invoke(
+            new VolumeSliceTask(
+                0, sliceImageSize, sliceImageSize, toSliceGrid(combinedTransform), slab, raster));
+    return toImage(raster, sliceImageSize);
+  }
 
-  protected double getPhotometricMinValue() {
-    boolean isPhotometricInverse = stack.getMiddleImage().isPhotometricInterpretationInverse(null);
-    return isPhotometricInverse ? maxValue : minValue;
+  private Matrix4d getSliceTransformation(MprAxis mprAxis, Vector3d volumeCenter) {
+    Quaterniond mprRotation = mprAxis.getMprView().mprController.getRotation();
+    return mprAxis.getCombinedTransformation(mprRotation, volumeCenter);
   }
 
-  public int getCVType() {
-    return cvType;
+  /** Position of the first pixel and steps along a row and a column, in voxel indexes */
+  private SliceGrid toSliceGrid(Matrix4d transform) {
+    Vector3d voxelRatio = getVoxelRatio();
+    return new SliceGrid(
+        new Vector3d(transform.m30(), transform.m31(), transform.m32()).div(voxelRatio),
+        new Vector3d(transform.m00(), transform.m01(), transform.m02()).div(voxelRatio),
+        new Vector3d(transform.m10(), transform.m11(), transform.m12()).div(voxelRatio));
   }
 
-  public Vector3d getTranslation() {
-    return translation;
+  private MemorySegment createSliceRaster(int sliceImageSize) {
+    int length = sliceImageSize * sliceImageSize;
+    MemorySegment raster = createRaster(length);
+    double value = getPhotometricMinValue();
+    if (MathUtil.isDifferentFromZero(value)) {
+      for (int i = 0; i < length; i++) {
+        setRasterValue(raster, i, value);
+      }
+    }
+    return raster;
   }
 
-  public void translate(double dx, double dy, double dz) {
-    translation.add(dx, dy, dz);
+  private ImageCV toImage(MemorySegment raster, int sliceImageSize) {
+    ImageCV imageCV = new ImageCV(sliceImageSize, sliceImageSize, getCVType());
+    switch (raster.heapBase().orElseThrow()) {
+      case byte[] a -> imageCV.put(0, 0, a);
+      case short[] a -> imageCV.put(0, 0, a);
+      case int[] a -> imageCV.put(0, 0, a);
+      case float[] a -> imageCV.put(0, 0, a);
+      case double[] a -> imageCV.put(0, 0, a);
+      default -> throw new IllegalStateException("Unsupported raster type");
+    }
+    return imageCV;
   }
 
-  public void resetTranslation() {
-    translation.set(0, 0, 0);
+  /**
+   * Copies the voxels without interpolation when the slice samples exactly the voxel grid (plane
+   * parallel to the volume axes, on a voxel plane and with the same resolution). The rows along
+   * the x-axis are copied in bulk.
+   *
+   * @return true if the slice has been copied
+   */
+  private boolean copyAlignedSlice(SliceGrid grid, int width, MemorySegment raster) {
+    Vector3i o = toGridPoint(grid.origin());
+    Vector3i u = toGridPoint(grid.du());
+    Vector3i v = toGridPoint(grid.dv());
+    if (o == null || !isUnitAxis(u) || !isUnitAxis(v)) {
+      return false;
+    }
+
+    // Offset in voxels of one step along a row of the slice
+    long step = u.x + (long) u.y * size.x + (long) u.z * size.x * size.y;
+    for (int y = 0; y < width; y++) {
+      int sx = o.x + y * v.x;
+      int sy = o.y + y * v.y;
+      int sz = o.z + y * v.z;
+      Span span = getInsideSpan(sx, sy, sz, u, width);
+      if (span == null) {
+        continue;
+      }
+      long src = index(sx + span.start() * u.x, sy + span.start() * u.y, sz + span.start() * u.z);
+      long dst = (long) y * width + span.start();
+      if (step == 1) {
+        MemorySegment.copy(
+            data, src * byteDepth, raster, dst * byteDepth, (long) span.length() * byteDepth);
+      } else {
+        for (int x = span.start(); x < span.end(); x++, src += step, dst++) {
+          MemorySegment.copy(data, src * byteDepth, raster, dst * byteDepth, byteDepth);
+        }
+      }
+    }
+    return true;
+  }
+
+  private static Vector3i toGridPoint(Vector3d p) {
+    long x = Math.round(p.x);
+    long y = Math.round(p.y);
+    long z = Math.round(p.z);
+    double epsilon = 1.0E-6;
+    if (Math.abs(p.x - x) > epsilon || Math.abs(p.y - y) > epsilon || Math.abs(p.z - z) > epsilon) {
+      return null;
+    }
+    if (x != (int) x || y != (int) y || z != (int) z) {
+      return null;
+    }
+    return new Vector3i((int) x, (int) y, (int) z);
   }
 
-  public void rotate(double angleX, double angleY, double angleZ) {
-    Quaterniond rotation = new Quaterniond();
-    rotation.rotateXYZ(angleX, angleY, angleZ);
-    this.rotation.mul(rotation);
+  private static boolean isUnitAxis(Vector3i v) {
+    return v != null && Math.abs(v.x) + Math.abs(v.y) + Math.abs(v.z) == 1;
   }
 
-  public Quaterniond getRotation() {
-    return rotation;
+  /** Range [start, end) of the steps of a line of voxels */
+  private record Span(int start, int end) {
+    int length() {
+      return end - start;
+    }
   }
 
-  public void resetRotation() {
-    rotation.identity();
+  /**
+   * @return the steps of the line starting at (sx, sy, sz) which are inside the volume, or null
+   */
+  private Span getInsideSpan(int sx, int sy, int sz, Vector3i u, int length) {
+    int start =
+        Math.max(
+            firstInside(sx, u.x, size.x),
+            Math.max(firstInside(sy, u.y, size.y), firstInside(sz, u.z, size.z)));
+    int end =
+        Math.min(
+            length,
+            1
+                + Math.min(
+                    lastInside(sx, u.x, size.x),
+                    Math.min(lastInside(sy, u.y, size.y), lastInside(sz, u.z, size.z))));
+    return start < end ? new Span(start, end) : null;
   }
 
-  protected abstract void createDataArray(int sizeX, int sizeY, int sizeZ);
+  private static int firstInside(int start, int step, int max) {
+    if (step == 0) {
+      return start >= 0 && start < max ? 0 : Integer.MAX_VALUE;
+    }
+    // Smallest i with 0 <= start + i * step < max
+    return step > 0 ? Math.max(0, -start) : Math.max(0, start - (max - 1));
+  }
 
-  protected abstract void setValue(int x, int y, int z, T value, Matrix3d transform);
+  private static int lastInside(int start, int step, int max) {
+    if (step == 0) {
+      return start >= 0 && start < max ? Integer.MAX_VALUE - 1 : -1;
+    }
+    // Largest i with 0 <= start + i * step < max
+    return step > 0 ? max - 1 - start : start;
+  }
 
-  protected void copyPixels(int width, int height, BiConsumer<Integer, Integer> setPixel) {
-    try (ForkJoinPool pool = new ForkJoinPool()) {
-      pool.invoke(new CopyPixelsTask(0, width * height, width, setPixel));
+  /**
+   * @param length the number of pixels
+   * @return a segment backed by a Java array of the type of the voxels
+   */
+  protected abstract MemorySegment createRaster(int length);
+
+  protected abstract void setRasterValue(MemorySegment raster, long index, double value);
+
+  /**
+   * @param index the index of the voxel in the z-major order
+   * @return the value of the voxel
+   */
+  protected abstract double getVoxel(long index);
+
+  /**
+   * @return the value of the voxel or NaN if the voxel is outside the volume
+   */
+  public double getValue(int x, int y, int z) {
+    if (isOutside(x, y, z)) {
+      return Double.NaN;
     }
+    return getVoxel(index(x, y, z));
+  }
+
+  /**
+   * @param origin the position of the first pixel of the slice in voxel indexes
+   * @param du the step of one pixel along a row
+   * @param dv the step of one pixel along a column
+   */
+  private record SliceGrid(Vector3d origin, Vector3d du, Vector3d dv) {}
+
+  /**
+   * @param normal the step between two slices of the slab in voxel indexes
+   * @param extend the number of slices on each side of the center
+   * @param type the projection type
+   * @param background the value of the samples outside the volume
+   * @param round true if the mean must be rounded to an integer value
+   */
+  private record Slab(
+      Vector3d normal, int extend, MipView.Type type, double background, boolean round) {}
+
+  /**
+   * Projects the ray of a slab starting at the center position.
+   *
+   * @return the minimum, the mean or the maximum of the samples along the ray
+   */
+  private double projectRay(double x, double y, double z, Slab slab) {
+    double nx = slab.normal().x;
+    double ny = slab.normal().y;
+    double nz = slab.normal().z;
+    int extend = slab.extend();
+    MipView.Type type = slab.type();
+    double result =
+        switch (type) {
+          case MIN -> Double.POSITIVE_INFINITY;
+          case MAX -> Double.NEGATIVE_INFINITY;
+          default -> 0.0;
+        };
+    for (int k = -extend; k <= extend; k++) {
+      double val = interpolateVolume(x + k * nx, y + k * ny, z + k * nz);
+      if (Double.isNaN(val)) {
+        val = slab.background();
+      }
+      if (type == MipView.Type.MIN) {
+        result = Math.min(result, val);
+      } else if (type == MipView.Type.MAX) {
+        result = Math.max(result, val);
+      } else {
+        result += val;
+      }
+    }
+    if (type == MipView.Type.MEAN) {
+      result /= 2 * extend + 1;
+      return slab.round() ? Math.rint(result) : result;
+    }
+    return result;
+  }
+
+  /**
+   * Interpolates rows of the slice, each row is walked with constant steps. When a slab is given,
+   * each pixel is the projection of the ray along the normal of the slab.
+   */
+  private class VolumeSliceTask extends RecursiveAction {
+    private final int startRow;
+    private final int endRow;
+    private final int width;
+    private final SliceGrid grid;
+    private final Slab slab;
+    private final MemorySegment raster;
+
+    VolumeSliceTask(
+        int startRow, int endRow, int width, SliceGrid grid, Slab slab, MemorySegment raster) {
+      this.startRow = startRow;
+      this.endRow = endRow;
+      this.width = width;
+      this.grid = grid;
+      this.slab = slab;
+      this.raster = raster;
+    }
+
+    @Override
+    protected void compute() {
+      long pixels = (long) (endRow - startRow) * width;
+      if (slab != null) {
+        pixels *= 2L * slab.extend() + 1;
+      }
+      if (pixels <= SLICE_TASK_PIXELS || endRow - startRow == 1) {
+        double ux = grid.du().x;
+        double uy = grid.du().y;
+        double uz = grid.du().z;
+        for (int y = startRow; y < endRow; y++) {
+          double rx = grid.origin().x + y * grid.dv().x;
+          double ry = grid.origin().y + y * grid.dv().y;
+          double rz = grid.origin().z + y * grid.dv().z;
+          long offset = (long) y * width;
+          for (int x = 0; x < width; x++) {
+            if (slab == null) {
+              double val = interpolateVolume(rx + x * ux, ry + x * uy, rz + x * uz);
+              if (!Double.isNaN(val)) {
+                setRasterValue(raster, offset + x, val);
+              }
+            } else {
+              setRasterValue(
+                  raster, offset + x, projectRay(rx + x * ux, ry + x * uy, rz + x * uz, slab));
+            }
+          }
+        }
+      } else {
+        int mid = (startRow + endRow) >>> 1;
+        invokeAll(
+            new VolumeSliceTask(startRow, mid, width, grid, slab, raster),
+            new VolumeSliceTask(mid, endRow, width, grid, slab, raster));
+      }
+    }
+  }
+
+  @FunctionalInterface
+  protected interface PixelConsumer {
+    void accept(int x, int y);
+  }
+
+  protected void copyPixels(int width, int height, PixelConsumer setPixel) {
+    ForkJoinPool.commonPool().invoke(new CopyPixelsTask(0, width * height, width, setPixel));
   }
 
   private static class CopyPixelsTask extends RecursiveAction {
@@ -343,9 +877,9 @@ private static class CopyPixelsTask extends RecursiveAction {
     private final int start;
     private final int end;
     private final int width;
-    private final BiConsumer<Integer, Integer> setPixel;
+    private final PixelConsumer setPixel;
 
-    CopyPixelsTask(int start, int end, int width, BiConsumer<Integer, Integer> setPixel) {
+    CopyPixelsTask(int start, int end, int width, PixelConsumer setPixel) {
       this.start = start;
       this.end = end;
       this.width = width;
@@ -406,8 +940,6 @@ protected boolean isOutside(int x, int y, int z) {
     return x < 0 || x >= size.x || y < 0 || y >= size.y || z < 0 || z >= size.z;
   }
 
-  public abstract T getValue(int x, int y, int z);
-
   public double getDiagonalLength() {
     return size.length();
   }
@@ -424,11 +956,14 @@ public double getMaximum() {
     return maxValue;
   }
 
-  protected void updateProgressBar(int sliceIndex) {
-    if (progressBar != null) {
+  /** Counts a completed slice, the pending updates of the progress bar are merged. */
+  protected void updateProgressBar() {
+    completedSlices.incrementAndGet();
+    if (progressBar != null && progressPending.compareAndSet(false, true)) {
       SwingUtilities.invokeLater(
           () -> {
-            progressBar.setValue(sliceIndex + 1);
+            progressPending.set(false);
+            progressBar.setValue(completedSlices.get());
           });
     }
   }
@@ -484,22 +1019,21 @@ protected static Volume<?> getSharedVolume(OriginalStack currentStack) {
     return null;
   }
 
-  protected Double interpolateVolume(Vector3d point, Vector3d voxelRatio) {
-    // Convert from world coordinates to voxel indices
-    double xIndex = point.x / voxelRatio.x;
-    double yIndex = point.y / voxelRatio.y;
-    double zIndex = point.z / voxelRatio.z;
-
+  /**
+   * @param xIndex the position along x in voxel index
+   * @param yIndex the position along y in voxel index
+   * @param zIndex the position along z in voxel index
+   * @return the trilinear interpolation of the voxels at the position or NaN if the position is
+   *     outside the volume
+   */
+  protected double interpolateVolume(double xIndex, double yIndex, double zIndex) {
     int x0 = (int) Math.floor(xIndex);
     int y0 = (int) Math.floor(yIndex);
     int z0 = (int) Math.floor(zIndex);
-    int x1 = x0 + 1;
-    int y1 = y0 + 1;
-    int z1 = z0 + 1;
 
     // Check if the point is outside the volume
-    if (x0 < 0 || x1 >= size.x || y0 < 0 || y1 >= size.y || z0 < 0 || z1 >= size.z) {
-      return null;
+    if (x0 < 0 || x0 + 1 >= size.x || y0 < 0 || y0 + 1 >= size.y || z0 < 0 || z0 + 1 >= size.z) {
+      return Double.NaN;
     }
 
     double xd = xIndex - x0;
@@ -507,28 +1041,23 @@ protected Double interpolateVolume(Vector3d point, Vector3d voxelRatio) {
     double zd = zIndex - z0;
 
     // Retrieve the values at the eight surrounding voxel points
-    T v000 = getValue(x0, y0, z0);
-    T v100 = getValue(x1, y0, z0);
-    T v010 = getValue(x0, y1, z0);
-    T v110 = getValue(x1, y1, z0);
-    T v001 = getValue(x0, y0, z1);
-    T v101 = getValue(x1, y0, z1);
-    T v011 = getValue(x0, y1, z1);
-    T v111 = getValue(x1, y1, z1);
+    long i000 = index(x0, y0, z0);
+    long dy = size.x;
+    long dz = (long) size.x * size.y;
+    double v000 = getVoxel(i000);
+    double v100 = getVoxel(i000 + 1);
+    double v010 = getVoxel(i000 + dy);
+    double v110 = getVoxel(i000 + dy + 1);
+    double v001 = getVoxel(i000 + dz);
+    double v101 = getVoxel(i000 + dz + 1);
+    double v011 = getVoxel(i000 + dz + dy);
+    double v111 = getVoxel(i000 + dz + dy + 1);
 
     // Trilinear interpolation
-    double c00 =
-        (v000 != null ? v000.doubleValue() : 0) * (1 - xd)
-            + (v100 != null ? v100.doubleValue() : 0) * xd;
-    double c01 =
-        (v001 != null ? v001.doubleValue() : 0) * (1 - xd)
-            + (v101 != null ? v101.doubleValue() : 0) * xd;
-    double c10 =
-        (v010 != null ? v010.doubleValue() : 0) * (1 - xd)
-            + (v110 != null ? v110.doubleValue() : 0) * xd;
-    double c11 =
-        (v011 != null ? v011.doubleValue() : 0) * (1 - xd)
-            + (v111 != null ? v111.doubleValue() : 0) * xd;
+    double c00 = v000 * (1 - xd) + v100 * xd;
+    double c01 = v001 * (1 - xd) + v101 * xd;
+    double c10 = v010 * (1 - xd) + v110 * xd;
+    double c11 = v011 * (1 - xd) + v111 * xd;
 
     double c0 = c00 * (1 - yd) + c10 * yd;
     double c1 = c01 * (1 - yd) + c11 * yd;
@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2025 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.viewer2d.mpr;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.dcm4che3.data.Tag;
+import org.joml.Vector3d;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.api.gui.util.GuiUtils;
+import org.weasis.core.api.service.BundlePreferences;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.TagD;
+import org.weasis.dicom.codec.geometry.GeometryOfSlice;
+
+/**
+ * Cache file of the volumes built from a stack of images, so the volume of a series already opened
+ * in MPR is not built again.
+ *
+ * <p>The file has a fixed size header (type, size, spacing, orientation, min/max values, series UID
+ * and hash of the instances of the stack) followed by the voxels in the z-major order of the volume
+ * and in the native byte order. The voxels are written in bulk in a background thread, once the
+ * views are displayed, and the file is memory-mapped read-only as the storage of the volume when it
+ * is read again.
+ *
+ * <p>The cache is kept in the data folder of the bundle, so the volumes are reused across the
+ * sessions. The total size of the cache is limited: the least recently used files are deleted
+ * first.
+ */
+final class VolumeCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(VolumeCache.class);
+
+  /** Enable the cache of the MPR volumes (true by default). */
+  static final String P_VOLUME_CACHE = "weasis.mpr.volume.cache";
+
+  /** Maximum size of the cache of the MPR volumes in MB (8 GB by default). */
+  static final String P_VOLUME_CACHE_MAX_SIZE = "weasis.mpr.volume.cache.max.size";
+
+  private static final int MAGIC = 0x57564F4C; // WVOL
+  private static final int VERSION = 1;
+  // The voxels start on a page boundary
+  private static final int HEADER_LENGTH = 4096;
+  // Maximum size of a bulk write
+  private static final int CHUNK_SIZE = 64 * 1024 * 1024;
+
+  private static final String EXTENSION = ".wvol"; // NON-NLS
+  private static final String TMP_EXTENSION = ".tmp"; // NON-NLS
+  // Age of the temporary files left by a crash
+  private static final long MAX_TMP_AGE = TimeUnit.DAYS.toMillis(1);
+
+  private static final ExecutorService WRITER =
+      ThreadUtil.buildNewSingleThreadExecutor("Volume Cache Writer"); // NON-NLS
+
+  private VolumeCache() {}
+
+  // Lazy initialization, the folder is not created when the cache is not used
+  private static final class CacheDirectoryHolder {
+    private static final File CACHE_DIR = buildCacheDirectory();
+  }
+
+  private static File buildCacheDirectory() {
+    File dir =
+        new File(
+            BundlePreferences.getDataFolder(AppProperties.getBundleContext(VolumeCache.class)),
+            "volume"); // NON-NLS
+    dir.mkdirs();
+    // The folder is shared by the running instances, only remove the old temporary files
+    long limit = System.currentTimeMillis() - MAX_TMP_AGE;
+    File[] files = dir.listFiles((d, name) -> name.endsWith(TMP_EXTENSION));
+    if (files != null) {
+      for (File f : files) {
+        if (f.lastModified() < limit) {
+          FileUtil.delete(f);
+        }
+      }
+    }
+    return dir;
+  }
+
+  static boolean isEnabled() {
+    return GuiUtils.getUICore().getSystemPreferences().getBooleanProperty(P_VOLUME_CACHE, true);
+  }
+
+  /**
+   * Maps the voxels of the cache file of the stack of the volume.
+   *
+   * @param volume the volume to fill, its type must be initialized
+   * @return true if the volume has been read from the cache
+   */
+  static boolean read(Volume<?> volume) {
+    Path file = getCacheFile(volume.stack);
+    if (file == null || !isEnabled() || !Files.isReadable(file)) {
+      return false;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, buf);
+      Header header = Header.read(buf);
+      if (header == null
+          || header.cvType() != volume.cvType
+          || !header.matches(volume.stack)
+          || channel.size() != HEADER_LENGTH + header.getDataLength(volume.byteDepth)) {
+        LOGGER.debug("Invalid volume cache {}", file);
+        FileUtil.delete(file.toFile());
+        return false;
+      }
+      volume.size.set(header.sizeX(), header.sizeY(), header.sizeZ());
+      volume.pixelRatio.set(header.pixelRatio());
+      volume.negativeDirection = header.negativeDirection();
+      volume.minValue = header.min();
+      volume.maxValue = header.max();
+      volume.mapData(file, HEADER_LENGTH);
+      // Used recently, delete it last
+      if (!file.toFile().setLastModified(System.currentTimeMillis())) {
+        LOGGER.debug("Cannot update the date of {}", file);
+      }
+      return true;
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Cannot read the volume cache {}", file, e);
+      return false;
+    }
+  }
+
+  /**
+   * Writes in background the voxels of a volume built from its stack, when it is not already in
+   * the cache.
+   *
+   * @param volume the volume
+   */
+  static void writeLater(Volume<?> volume) {
+    if (volume != null && isEnabled() && volume.takeCacheWrite()) {
+      WRITER.execute(() -> write(volume));
+    }
+  }
+
+  /**
+   * Writes the voxels of a volume in the cache file of its stack. The writing stops when the data
+   * of the volume is removed.
+   *
+   * @param volume the volume built from its stack
+   */
+  private static void write(Volume<?> volume) {
+    Path file = getCacheFile(volume.stack);
+    if (file == null || !volume.lockData()) {
+      return;
+    }
+    try {
+      write(volume, file);
+    } finally {
+      volume.unlockData();
+    }
+    prune(file);
+  }
+
+  private static void write(Volume<?> volume, Path file) {
+    long length = volume.data.byteSize();
+    if (CacheDirectoryHolder.CACHE_DIR.getUsableSpace() < 2 * length) {
+      LOGGER.debug("Not enough space to write the volume cache {}", file);
+      return;
+    }
+
+    // Write a temporary file, so an incomplete volume is never read
+    Path tmp = file.resolveSibling(file.getFileName() + TMP_EXTENSION);
+    try {
+      try (FileChannel channel =
+          FileChannel.open(
+              tmp,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.WRITE)) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        Header.of(volume).write(header);
+        header.clear();
+        writeFully(channel, header);
+        for (long pos = 0; pos < length; pos += CHUNK_SIZE) {
+          if (volume.isDataRemoving()) {
+            throw new IOException("The volume has been closed");
+          }
+          MemorySegment chunk = volume.data.asSlice(pos, Math.min(CHUNK_SIZE, length - pos));
+          writeFully(channel, chunk.asByteBuffer());
+        }
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      FileUtil.delete(tmp.toFile());
+      if (volume.isDataRemoving()) {
+        LOGGER.debug("Stop writing the volume cache {}", file);
+      } else {
+        LOGGER.warn("Cannot write the volume cache {}", file, e);
+      }
+    }
+  }
+
+  /**
+   * Deletes the least recently used files when the cache exceeds its maximum size.
+   *
+   * @param keep the file that has just been written
+   */
+  private static void prune(Path keep) {
+    long maxSize =
+        GuiUtils.getUICore().getSystemPreferences().getLongProperty(P_VOLUME_CACHE_MAX_SIZE, 8192)
+            * 1024
+            * 1024;
+    File[] files =
+        CacheDirectoryHolder.CACHE_DIR.listFiles((dir, name) -> name.endsWith(EXTENSION));
+    if (files == null) {
+      return;
+    }
+    long total = 0;
+    for (File f : files) {
+      total += f.length();
+    }
+    if (total <= maxSize) {
+      return;
+    }
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    for (File f : files) {
+      if (total <= maxSize) {
+        break;
+      }
+      if (!f.toPath().equals(keep)) {
+        long length = f.length();
+        if (FileUtil.delete(f)) {
+          total -= length;
+        }
+      }
+    }
+  }
+
+  private static Path getCacheFile(OriginalStack stack) {
+    String seriesUID = getSeriesUID(stack);
+    if (!StringUtil.hasText(seriesUID)) {
+      return null;
+    }
+    String key =
+        StringUtil.bytesToMD5(
+            (seriesUID + "|" + stack.getStackOrientation() + "|" + getInstancesHash(stack))
+                .getBytes(StandardCharsets.UTF_8));
+    return CacheDirectoryHolder.CACHE_DIR.toPath().resolve(key + EXTENSION);
+  }
+
+  private static String getSeriesUID(OriginalStack stack) {
+    return stack == null || stack.getSeries() == null
+        ? null
+        : TagD.getTagValue(stack.getSeries(), Tag.SeriesInstanceUID, String.class);
+  }
+
+  /**
+   * @return the hash of the images of the stack in their order, with the geometry of the stack
+   */
+  private static String getInstancesHash(OriginalStack stack) {
+    StringBuilder buf = new StringBuilder();
+    for (DicomImageElement img : stack.getSourceStack()) {
+      buf.append(TagD.getTagValue(img, Tag.SOPInstanceUID, String.class));
+      buf.append('/').append(img.getKey()).append(';');
+    }
+    GeometryOfSlice geometry = stack.getFistSliceGeometry();
+    Vector3d[] vectors = {geometry.getRow(), geometry.getColumn(), geometry.getTLHC()};
+    for (Vector3d v : vectors) {
+      buf.append(v.x).append(',').append(v.y).append(',').append(v.z).append(';');
+    }
+    buf.append(stack.getSliceSpace()).append(';').append(stack.isVariableSliceSpacing());
+    return StringUtil.bytesToMD5(buf.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private record Header(
+      int cvType,
+      int sizeX,
+      int sizeY,
+      int sizeZ,
+      Vector3d pixelRatio,
+      boolean negativeDirection,
+      int orientation,
+      double min,
+      double max,
+      String seriesUID,
+      String instancesHash) {
+
+    static Header of(Volume<?> volume) {
+      OriginalStack stack = volume.stack;
+      return new Header(
+          volume.cvType,
+          volume.size.x,
+          volume.size.y,
+          volume.size.z,
+          new Vector3d(volume.pixelRatio),
+          volume.negativeDirection,
+          stack.getStackOrientation().ordinal(),
+          volume.minValue,
+          volume.maxValue,
+          getSeriesUID(stack),
+          getInstancesHash(stack));
+    }
+
+    static Header read(ByteBuffer buf) {
+      if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+        return null;
+      }
+      // The voxels are in the native byte order
+      boolean littleEndian = buf.get() == 1;
+      if (littleEndian != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)) {
+        return null;
+      }
+      int cvType = buf.getInt();
+      int sizeX = buf.getInt();
+      int sizeY = buf.getInt();
+      int sizeZ = buf.getInt();
+      if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0) {
+        return null;
+      }
+      Vector3d pixelRatio = new Vector3d(buf.getDouble(), buf.getDouble(), buf.getDouble());
+      boolean negativeDirection = buf.get() == 1;
+      int orientation = buf.getInt();
+      double min = buf.getDouble();
+      double max = buf.getDouble();
+      String seriesUID = readString(buf);
+      String instancesHash = readString(buf);
+      if (seriesUID == null || instancesHash == null) {
+        return null;
+      }
+      return new Header(
+          cvType,
+          sizeX,
+          sizeY,
+          sizeZ,
+          pixelRatio,
+          negativeDirection,
+          orientation,
+          min,
+          max,
+          seriesUID,
+          instancesHash);
+    }
+
+    void write(ByteBuffer buf) {
+      buf.putInt(MAGIC).putInt(VERSION);
+      buf.put((byte) (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 1 : 0));
+      buf.putInt(cvType).putInt(sizeX).putInt(sizeY).putInt(sizeZ);
+      buf.putDouble(pixelRatio.x).putDouble(pixelRatio.y).putDouble(pixelRatio.z);
+      buf.put((byte) (negativeDirection ? 1 : 0));
+      buf.putInt(orientation);
+      buf.putDouble(min).putDouble(max);
+      writeString(buf, seriesUID);
+      writeString(buf, instancesHash);
+    }
+
+    boolean matches(OriginalStack stack) {
+      return orientation == stack.getStackOrientation().ordinal()
+          && seriesUID.equals(getSeriesUID(stack))
+          && instancesHash.equals(getInstancesHash(stack));
+    }
+
+    long getDataLength(int byteDepth) {
+      return (long) sizeX * sizeY * sizeZ * byteDepth;
+    }
+  }
+
+  private static String readString(ByteBuffer buf) {
+    int length = Short.toUnsignedInt(buf.getShort());
+    if (length > buf.remaining()) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buf.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(ByteBuffer buf, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buf.putShort((short) bytes.length);
+    buf.put(bytes);
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buf) throws IOException {
+    long pos = 0;
+    while (buf.hasRemaining()) {
+      int n = channel.read(buf, pos);
+      if (n < 0) {
+        throw new IOException("Unexpected end of file");
+      }
+      pos += n;
+    }
+    buf.flip();
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+    while (buf.hasRemaining()) {
+      channel.write(buf);
+    }
+  }
+}